@@ -0,0 +1,115 @@
+package benchmarks;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import server.Broadcaster;
+import server.MailboxConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// One chat line broadcast to N in-process clients, measured until every client has it.
+// All threads share one Broadcaster like the rooms of a server do, each thread has its
+// own audience, so the 4 thread variant is four rooms fanning out at once.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final String MAILBOX = "bench";
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        Broadcaster broadcaster;
+
+        @Setup
+        public void setUp() {
+            broadcaster = new Broadcaster(new MailboxConfig(256, 5000));
+        }
+
+        @TearDown
+        public void tearDown() {
+            broadcaster.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Audience {
+        @Param({"6", "100", "1000"})
+        public int clients;
+
+        List<GameClientInterface> stubs;
+        volatile CountDownLatch pending;
+
+        @Setup
+        public void setUp(Server server) {
+            stubs = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                CountingClient stub = new CountingClient(this, "client" + i);
+                server.broadcaster.register(stub, MAILBOX, null);
+                stubs.add(stub);
+            }
+        }
+    }
+
+    // Counts every delivered event down on the audience's current latch
+    static final class CountingClient implements GameClientInterface {
+        private final Audience audience;
+        private final String name;
+
+        CountingClient(Audience audience, String name) {
+            this.audience = audience;
+            this.name = name;
+        }
+
+        @Override
+        public void onEvents(List<GameEvent> events) {
+            CountDownLatch pending = audience.pending;
+            for (int i = 0; i < events.size(); i++) {
+                pending.countDown();
+            }
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+    }
+
+    private static final GameEvent LINE = new GameEvent.Chat("player0", "a clue");
+
+    @Benchmark
+    @Threads(1)
+    public void broadcast(Server server, Audience audience) throws InterruptedException {
+        fanOut(server, audience);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void broadcast4Threads(Server server, Audience audience) throws InterruptedException {
+        fanOut(server, audience);
+    }
+
+    private static void fanOut(Server server, Audience audience) throws InterruptedException {
+        audience.pending = new CountDownLatch(audience.clients);
+        server.broadcaster.broadcast(audience.stubs, MAILBOX, LINE);
+        audience.pending.await();
+    }
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import common.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import server.ImposterGameImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// What an RMI reply to getPlayers costs: reading the room's published roster and
+// serializing it. The full Player list is kept as a baseline for the PlayerView projection.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetPlayersBenchmark {
+    @Param({"3", "6"})
+    public int roomSize;
+
+    private ScratchData data;
+    private ImposterGameImpl game;
+    private List<Player> players;
+    private ScheduledExecutorService heartbeats;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = ScratchData.create();
+        game = new ImposterGameImpl() {
+        };
+        players = new ArrayList<>();
+        for (int i = 0; i < roomSize; i++) {
+            String name = "player" + i;
+            game.registerPlayer("bench", name, new NoopClient(name));
+            players.add(new Player(name));
+        }
+        // keep the leases alive, otherwise the room empties two seconds in
+        heartbeats = Executors.newSingleThreadScheduledExecutor();
+        heartbeats.scheduleAtFixedRate(() -> {
+            for (Player player : players) {
+                try {
+                    game.heartbeat("bench", player.getName());
+                } catch (RemoteException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, 0, 500, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        heartbeats.shutdownNow();
+        game.shutdown();
+        UnicastRemoteObject.unexportObject(game, true);
+        data.delete();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] playerViews() throws IOException {
+        return serialize(game.getPlayers("bench"));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] playerViews4Threads() throws IOException {
+        return serialize(game.getPlayers("bench"));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] fullPlayers() throws IOException {
+        return serialize(players);
+    }
+
+    private static byte[] serialize(List<?> list) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(list);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,24 @@
+package benchmarks;
+
+import common.GameClientInterface;
+import common.GameEvent;
+
+import java.util.List;
+
+// In-process stand-in for a player, takes every callback and drops it
+final class NoopClient implements GameClientInterface {
+    private final String name;
+
+    NoopClient(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void onEvents(List<GameEvent> events) {
+    }
+
+    @Override
+    public String getPlayerName() {
+        return name;
+    }
+}
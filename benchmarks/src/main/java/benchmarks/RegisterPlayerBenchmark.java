@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import server.ImposterGameImpl;
+
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fills a fresh room through registerPlayer and tears it down again, the same path a
+// lobby full of joining players takes. The 4 thread variant fills different rooms at once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegisterPlayerBenchmark {
+    @Param({"3", "6"})
+    public int roomSize;
+
+    private ScratchData data;
+    private ImposterGameImpl game;
+    private AtomicLong nextRoom;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = ScratchData.create();
+        game = new ImposterGameImpl() {
+        };
+        nextRoom = new AtomicLong();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        game.shutdown();
+        UnicastRemoteObject.unexportObject(game, true);
+        data.delete();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean fillRoom() throws RemoteException {
+        return fill();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean fillRoom4Threads() throws RemoteException {
+        return fill();
+    }
+
+    private boolean fill() throws RemoteException {
+        String roomId = "bench-" + nextRoom.incrementAndGet();
+        boolean registered = true;
+        for (int i = 0; i < roomSize; i++) {
+            String name = "player" + i;
+            registered &= game.registerPlayer(roomId, name, new NoopClient(name));
+        }
+        game.getRoomManager().removeRoom(roomId);
+        return registered;
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Journal and match store of a benchmark fork, kept in a temp dir so runs never touch
+// the server's data directories and start from an empty history every time
+final class ScratchData {
+    private final Path directory;
+
+    private ScratchData(Path directory) {
+        this.directory = directory;
+    }
+
+    // Call before the server is built, it reads the properties once on startup
+    static ScratchData create() throws IOException {
+        Path directory = Files.createTempDirectory("imposter-bench");
+        System.setProperty("imposter.journal", directory.resolve("journal").toString());
+        System.setProperty("imposter.stats", directory.resolve("stats").toString());
+        return new ScratchData(directory);
+    }
+
+    // Call after the server is shut down so nothing is still writing
+    void delete() throws IOException {
+        System.clearProperty("imposter.journal");
+        System.clearProperty("imposter.stats");
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One voting phase: every seat votes through submitVote's tally, then the phase is closed
+// and the result read the way calculateResults does. Lives in the server package because
+// the tally is package-private. The 4 thread variant runs independent rooms side by side.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteTallyBenchmark {
+    @Param({"3", "6"})
+    public int roomSize;
+
+    private Map<String, Integer> seats;
+    private String[] names;
+    private int[] targets;
+
+    @Setup
+    public void setUp() {
+        seats = new HashMap<>();
+        names = new String[roomSize];
+        targets = new int[roomSize];
+        for (int i = 0; i < roomSize; i++) {
+            names[i] = "player" + i;
+            seats.put(names[i], i);
+            // everyone votes for the next seat except the last, who follows the first
+            targets[i] = i == roomSize - 1 ? 1 : (i + 1) % roomSize;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int votingPhase() {
+        return phase();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int votingPhase4Threads() {
+        return phase();
+    }
+
+    private int phase() {
+        VoteTally tally = new VoteTally(seats, GameRoom.MAX_PLAYERS, roomSize);
+        for (int seat = 0; seat < roomSize; seat++) {
+            tally.vote(tally.seatOf(names[seat]), targets[seat]);
+        }
+        tally.close();
+        return tally.isTie() ? SeatIndex.NO_SEAT : tally.leader();
+    }
+}
@@ -0,0 +1,40 @@
+package client;
+
+import common.GameInterface;
+
+import java.rmi.RemoteException;
+
+// Estimates the offset between the local clock and the server clock so deadlines
+// sent by the server can be counted down locally without per-second updates
+public class ClockSync {
+    private static final int SAMPLES = 5;
+
+    private volatile long offset;
+
+    // NTP style: keep the sample with the shortest round trip, its midpoint is the most accurate
+    public void sync(GameInterface server) throws RemoteException {
+        long bestRoundTrip = Long.MAX_VALUE;
+        long bestOffset = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long sent = System.currentTimeMillis();
+            long serverTime = server.getServerTime();
+            long received = System.currentTimeMillis();
+            long roundTrip = received - sent;
+            if (roundTrip < bestRoundTrip) {
+                bestRoundTrip = roundTrip;
+                bestOffset = serverTime - (sent + roundTrip / 2);
+            }
+        }
+        offset = bestOffset;
+    }
+
+    public long serverNow() {
+        return System.currentTimeMillis() + offset;
+    }
+
+    // Whole seconds left until a server deadline, never negative
+    public int secondsUntil(long deadline) {
+        long millis = deadline - serverNow();
+        return millis <= 0 ? 0 : (int) ((millis + 999) / 1000);
+    }
+}
@@ -1,12 +1,14 @@
 package client;
 
 import common.GameClientInterface;
+import common.GameEvent;
 import common.GameState;
 
 import java.rmi.RemoteException;
-import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
 
-public class GameClientImpl extends UnicastRemoteObject implements GameClientInterface {
+// Plain callback object, exported by the UI when RMI is the transport
+public class GameClientImpl implements GameClientInterface {
     private String playerName;
     private GameClientUI ui;
     private String assignedWord;
@@ -14,28 +16,56 @@ public class GameClientImpl extends UnicastRemoteObject implements GameClientInt
     private boolean isImposter;
     private boolean isMyTurn;
     private boolean hasVoted;
+    private final RosterReplica roster;
 
-    public GameClientImpl(String playerName, GameClientUI ui) throws RemoteException {
-        super();
+    public GameClientImpl(String playerName, GameClientUI ui) {
         this.playerName = playerName;
         this.ui = ui;
         this.isMyTurn = false;
         this.hasVoted = false;
+        this.roster = new RosterReplica();
     }
 
     @Override
-    public void updateChat(String playerName, String message) throws RemoteException {
+    public void onEvents(List<GameEvent> events) throws RemoteException {
+        // apply in order, the batch is one server transition
+        for (GameEvent event : events) {
+            switch (event) {
+                case GameEvent.StateChanged e -> gameStateChanged(e.state());
+                case GameEvent.Chat e -> updateChat(e.playerName(), e.message());
+                case GameEvent.YourTurn e -> setYourTurn(e.yourTurn(), e.deadline());
+                case GameEvent.WordAssigned e -> receiveWord(e.word(), e.imposter(), e.hint());
+                case GameEvent.VotingDeadline e -> ui.updateVotingDeadline(e.deadline(), e.durationSeconds());
+                case GameEvent.VoteRecorded e -> voteRecorded();
+                case GameEvent.VotingResult e -> ui.showVotingResult(e.imposter(), e.won());
+                case GameEvent.RoomAssigned e -> ui.roomAssigned(e.roomId());
+                // meant for the lobby browser, can reach us when both share one socket
+                case GameEvent.LobbyChanged e -> {
+                }
+                case GameEvent.RosterChange e -> rosterChanged(e);
+            }
+        }
+    }
+
+    private void rosterChanged(GameEvent.RosterChange delta) {
+        if (!roster.apply(delta)) {
+            // missed a delta, fetch the full roster once and continue from there
+            ui.resyncRoster();
+            return;
+        }
+        ui.updatePlayerList();
+    }
+
+    private void updateChat(String playerName, String message) {
         ui.appendChat(playerName + ": " + message);
     }
 
-    @Override
-    public void setYourTurn(boolean isYourTurn, int timeLimit) throws RemoteException {
+    private void setYourTurn(boolean isYourTurn, long deadline) {
         this.isMyTurn = isYourTurn;
-        ui.setTurnStatus(isYourTurn, timeLimit);
+        ui.setTurnStatus(isYourTurn, deadline);
     }
 
-    @Override
-    public void receiveWord(String word, boolean isImposter, String hint) throws RemoteException {
+    private void receiveWord(String word, boolean isImposter, String hint) {
         this.assignedWord = word;
         this.isImposter = isImposter;
         this.hint = hint;
@@ -47,26 +77,14 @@ public class GameClientImpl extends UnicastRemoteObject implements GameClientInt
         }
     }
 
-    @Override
-    public void showVotingResult(String imposter, boolean won, String resultMessage) throws RemoteException {
-        ui.showVotingResult(imposter, won);
-    }
-
-    @Override
-    public void gameStateChanged(GameState state) throws RemoteException {
+    private void gameStateChanged(GameState state) {
         ui.updateGameState(state);
         if (state == GameState.VOTING) {
             hasVoted = false;
         }
     }
 
-    @Override
-    public void updateVotingTimer(int timeLeft) throws RemoteException {
-        ui.updateVotingTimer(timeLeft);
-    }
-
-    @Override
-    public void voteRecorded() throws RemoteException {
+    private void voteRecorded() {
         this.hasVoted = true;
         ui.voteRecorded();
     }
@@ -88,6 +106,10 @@ public class GameClientImpl extends UnicastRemoteObject implements GameClientInt
         return assignedWord;
     }
 
+    public RosterReplica getRoster() {
+        return roster;
+    }
+
     public boolean isImposter() {
         return isImposter;
     }
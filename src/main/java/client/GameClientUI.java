@@ -1,26 +1,45 @@
 package client;
 
+import cluster.DirectoryServer;
+import common.DirectoryInterface;
+import common.GameClientInterface;
 import common.GameInterface;
 import common.GameState;
-import common.Player;
+import common.LeaderboardEntry;
+import common.NodeInfo;
+import common.PlayerStats;
+import common.PlayerView;
+import common.RosterSnapshot;
+import transport.NioClient;
+import transport.NioServer;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
 
 public class GameClientUI extends JFrame {
+    private static final int LEADERBOARD_PAGE = 20;
+
     private JTextField nameField;
+    private JTextField roomField;
     private JButton connectButton;
     private JButton registerButton;
+    private JButton quickMatchButton;
+    private JButton browseButton;
     //    private JButton startGameButton;
     private JButton sendButton;
     private JButton voteButton;
     private JButton replayButton;
+    private JButton leaderboardButton;
     private JTextArea chatArea;
     private JTextField messageField;
     private JLabel statusLabel;
@@ -35,12 +54,22 @@ public class GameClientUI extends JFrame {
     private JLabel votedStatusLabel;
 
     private GameInterface server;
+    // set when -Dimposter.directory points at a cluster, rooms then live on different nodes
+    private DirectoryInterface directory;
+    private NodeInfo serverNode;
     private GameClientImpl client;
     private String playerName;
+    private String roomId;
     private GameState currentState;
-    private java.util.Timer turnTimer;
-    private int timeLeft;
+    private Timer turnTimer;
+    private Timer votingTimer;
+    private final ClockSync clock = new ClockSync();
+    private Heartbeat heartbeat;
     private boolean hasVoted;
+    // in the matchmaking queue, no room yet
+    private boolean queued;
+    // watching a room, never registered in it
+    private boolean spectating;
 
     public GameClientUI() {
         initComponents();
@@ -61,6 +90,10 @@ public class GameClientUI extends JFrame {
         nameField = new JTextField(15);
         topPanel.add(nameField);
 
+        topPanel.add(new JLabel("Room"));
+        roomField = new JTextField("lobby", 10);
+        topPanel.add(roomField);
+
         connectButton = new JButton("Connect");
         connectButton.addActionListener(e -> connectToServer());
         topPanel.add(connectButton);
@@ -70,6 +103,16 @@ public class GameClientUI extends JFrame {
         registerButton.addActionListener(e -> registerPlayer());
         topPanel.add(registerButton);
 
+        quickMatchButton = new JButton("Quick Match");
+        quickMatchButton.setEnabled(false);
+        quickMatchButton.addActionListener(e -> quickMatch());
+        topPanel.add(quickMatchButton);
+
+        browseButton = new JButton("Browse Rooms");
+        browseButton.setEnabled(false);
+        browseButton.addActionListener(e -> browseRooms());
+        topPanel.add(browseButton);
+
         statusLabel = new JLabel("Status: Not Connected");
         statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
         topPanel.add(statusLabel);
@@ -197,23 +240,48 @@ public class GameClientUI extends JFrame {
         replayButton.setEnabled(false);
         replayButton.addActionListener(e -> replayGame());
 
+        leaderboardButton = new JButton("Leaderboard");
+        leaderboardButton.setEnabled(false);
+        leaderboardButton.addActionListener(e -> showLeaderboard(0));
+
 //        bottomPanel.add(startGameButton);
         bottomPanel.add(replayButton);
+        bottomPanel.add(leaderboardButton);
 
         add(bottomPanel, BorderLayout.SOUTH);
 
         setSize(900, 700);
         setLocationRelativeTo(null);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                leaveRoom();
+            }
+        });
     }
 
     private void connectToServer() {
         try {
-            Registry registry = LocateRegistry.getRegistry("localhost", 1099);
-            server = (GameInterface) registry.lookup("ImposterGame");
+            String directoryAddress = System.getProperty("imposter.directory");
+            if (directoryAddress != null) {
+                // clustered, the node for the room in the field answers the lobby calls
+                directory = DirectoryServer.lookup(directoryAddress);
+                routeTo(roomField.getText().trim());
+            } else if (useNio()) {
+                server = NioClient.connect("localhost", NioServer.DEFAULT_PORT);
+            } else {
+                Registry registry = LocateRegistry.getRegistry("localhost", 1099);
+                server = (GameInterface) registry.lookup("ImposterGame");
+            }
+            clock.sync(server);
 
             statusLabel.setText("Status: Connected to Server");
             statusLabel.setForeground(new Color(0, 150, 0));
             registerButton.setEnabled(true);
+            quickMatchButton.setEnabled(true);
+            browseButton.setEnabled(true);
+            leaderboardButton.setEnabled(true);
             connectButton.setEnabled(false);
 
             appendChat("System: Connected to game server");
@@ -227,6 +295,73 @@ public class GameClientUI extends JFrame {
         }
     }
 
+    // Shows one page of the leaderboard, the server hands out pages so nothing is sorted here
+    private void showLeaderboard(int offset) {
+        try {
+            List<LeaderboardEntry> page = server.getLeaderboard(offset, LEADERBOARD_PAGE);
+            StringBuilder text = new StringBuilder();
+            for (LeaderboardEntry entry : page) {
+                text.append(String.format("%d. %s  %d  (%d games)%n", entry.rank(), entry.playerName(),
+                        entry.rating(), entry.gamesPlayed()));
+            }
+            if (page.isEmpty()) {
+                text.append("No ranked players yet\n");
+            }
+            LeaderboardEntry own = playerName != null ? server.getRank(playerName) : null;
+            if (own != null) {
+                text.append(String.format("%nYou: #%d with %d", own.rank(), own.rating()));
+            }
+            Object[] options = {"Previous", "Next", "Close"};
+            int choice = JOptionPane.showOptionDialog(this, text.toString(), "Leaderboard",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[2]);
+            if (choice == 0 && offset > 0) {
+                showLeaderboard(Math.max(0, offset - LEADERBOARD_PAGE));
+            } else if (choice == 1 && page.size() == LEADERBOARD_PAGE) {
+                showLeaderboard(offset + LEADERBOARD_PAGE);
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Failed to load leaderboard: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Switches to the node that owns the room when a directory is in use
+    private void routeTo(String room) throws RemoteException {
+        if (directory == null) {
+            return;
+        }
+        NodeInfo owner = directory.resolve(room);
+        if (owner == null) {
+            throw new RemoteException("No game node is up");
+        }
+        if (owner.equals(serverNode)) {
+            return;
+        }
+        GameInterface previous = server;
+        try {
+            if (useNio()) {
+                server = NioClient.connect(owner.host(), owner.nioPort());
+            } else {
+                server = (GameInterface) LocateRegistry.getRegistry(owner.host(), owner.rmiPort()).lookup("ImposterGame");
+            }
+        } catch (IOException | NotBoundException e) {
+            throw new RemoteException("Cannot reach node " + owner.nodeId(), e);
+        }
+        serverNode = owner;
+        if (previous != null && useNio()) {
+            NioClient.close(previous);
+        }
+        clock.sync(server);
+        appendChat("System: Room " + room + " is on node " + owner.nodeId());
+    }
+
+    // -Dimposter.transport=nio uses the socket transport instead of RMI
+    private static boolean useNio() {
+        return "nio".equalsIgnoreCase(System.getProperty("imposter.transport", "rmi"));
+    }
+
     private void registerPlayer() {
         playerName = nameField.getText().trim();
         if (playerName.isEmpty()) {
@@ -235,16 +370,30 @@ public class GameClientUI extends JFrame {
                     "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
+        roomId = roomField.getText().trim();
+        if (roomId.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter a room name",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         try {
+            routeTo(roomId);
             client = new GameClientImpl(playerName, this);
-            boolean registered = server.registerPlayer(playerName, client);
+            // over NIO events come back on the same socket, RMI needs the callback exported
+            GameClientInterface callback = useNio() ? client : (GameClientInterface) UnicastRemoteObject.exportObject(client, 0);
+            boolean registered = server.registerPlayer(roomId, playerName, callback);
             if (registered) {
-                statusLabel.setText("Status: Registered as " + playerName);
+                heartbeat = new Heartbeat(server, roomId, playerName, this::connectionLost);
+                heartbeat.start();
+                statusLabel.setText("Status: Registered as " + playerName + " in " + roomId);
                 registerButton.setEnabled(false);
+                quickMatchButton.setEnabled(false);
+                browseButton.setEnabled(false);
                 nameField.setEnabled(false);
+                roomField.setEnabled(false);
 //                startGameButton.setEnabled(true);
-                appendChat("System: Successfully registered as " + playerName);
-                updatePlayerList();
+                appendChat("System: Successfully registered as " + playerName + " in room " + roomId);
             } else {
                 JOptionPane.showMessageDialog(this,
                         "Failed to register. Name might be taken or game already started.",
@@ -273,7 +422,7 @@ public class GameClientUI extends JFrame {
         String message = messageField.getText().trim();
         if (!message.isEmpty() && client != null && client.isMyTurn()) {
             try {
-                server.sendMessage(playerName, message);
+                server.sendMessage(roomId, playerName, message);
                 messageField.setText("");
             } catch (RemoteException e) {
                 e.printStackTrace();
@@ -285,7 +434,7 @@ public class GameClientUI extends JFrame {
         String votedPlayer = (String) voteComboBox.getSelectedItem();
         if (votedPlayer != null && !votedPlayer.equals(playerName)) {
             try {
-                server.submitVote(playerName, votedPlayer);
+                server.submitVote(roomId, playerName, votedPlayer);
 //                voteButton.setEnabled(false);
 //                voteComboBox.setEnabled(false);
 //                appendChat("System: You voted for " + votedPlayer);
@@ -295,15 +444,131 @@ public class GameClientUI extends JFrame {
         }
     }
 
+    private void browseRooms() {
+        new LobbyBrowser(this, server, !useNio(), room -> {
+            roomField.setText(room);
+            registerPlayer();
+        }, this::watchRoom).open();
+    }
+
+    // Follows a room read-only, the server starts us off with a snapshot of it
+    private void watchRoom(String room) {
+        try {
+            routeTo(room);
+            playerName = nameField.getText().trim().isEmpty() ? "spectator" : nameField.getText().trim();
+            client = new GameClientImpl(playerName, this);
+            GameClientInterface callback = useNio() ? client : (GameClientInterface) UnicastRemoteObject.exportObject(client, 0);
+            if (server.spectate(room, callback)) {
+                spectating = true;
+                roomId = room;
+                roomField.setText(room);
+                statusLabel.setText("Status: Watching " + room);
+                registerButton.setEnabled(false);
+                quickMatchButton.setEnabled(false);
+                browseButton.setEnabled(false);
+                nameField.setEnabled(false);
+                roomField.setEnabled(false);
+                appendChat("System: Watching room " + room);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Room " + room + " is gone",
+                        "Watch Failed", JOptionPane.ERROR_MESSAGE);
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Failed to watch: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Waits in the matchmaking queue, the server picks the room and starts the game
+    private void quickMatch() {
+        playerName = nameField.getText().trim();
+        if (playerName.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter a player name",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        try {
+            client = new GameClientImpl(playerName, this);
+            GameClientInterface callback = useNio() ? client : (GameClientInterface) UnicastRemoteObject.exportObject(client, 0);
+            if (server.joinQueue(playerName, callback)) {
+                queued = true;
+                statusLabel.setText("Status: Waiting for a match as " + playerName);
+                registerButton.setEnabled(false);
+                quickMatchButton.setEnabled(false);
+                browseButton.setEnabled(false);
+                nameField.setEnabled(false);
+                roomField.setEnabled(false);
+                appendChat("System: Looking for a match...");
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Failed to join the queue. Name might already be waiting.",
+                        "Quick Match Failed", JOptionPane.ERROR_MESSAGE);
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Failed to join the queue: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    public void roomAssigned(String assignedRoomId) {
+        SwingUtilities.invokeLater(() -> {
+            queued = false;
+            roomId = assignedRoomId;
+            roomField.setText(assignedRoomId);
+            heartbeat = new Heartbeat(server, roomId, playerName, this::connectionLost);
+            heartbeat.start();
+            statusLabel.setText("Status: Registered as " + playerName + " in " + roomId);
+            appendChat("System: Matched into room " + roomId);
+        });
+    }
+
     private void replayGame() {
         try {
-            server.replayGame();
+            server.replayGame(roomId);
             restartGameUI();
         } catch (RemoteException e) {
             e.printStackTrace();
         }
     }
 
+    private void connectionLost() {
+        SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Status: Connection lost, register again to rejoin " + roomId);
+            registerButton.setEnabled(true);
+            appendChat("System: The server lost track of you, register with the same name to take your seat back");
+        });
+    }
+
+    private void leaveRoom() {
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
+        if (server == null || client == null) {
+            return;
+        }
+        try {
+            if (queued) {
+                server.leaveQueue(playerName);
+            }
+            if (roomId == null) {
+                return;
+            }
+            if (spectating) {
+                server.stopSpectating(roomId, client);
+                return;
+            }
+            server.leaveRoom(roomId, playerName);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
     void appendChat(String message) {
         SwingUtilities.invokeLater(() -> {
             chatArea.append(message + "\n");
@@ -311,7 +576,7 @@ public class GameClientUI extends JFrame {
         });
     }
 
-    public void setTurnStatus(boolean isMyTurn, int timeLimit) {
+    public void setTurnStatus(boolean isMyTurn, long deadline) {
         SwingUtilities.invokeLater(() -> {
             if (isMyTurn) {
                 turnLabel.setText("YOUR TURN!");
@@ -319,7 +584,7 @@ public class GameClientUI extends JFrame {
                 messageField.setEnabled(true);
                 sendButton.setEnabled(true);
                 messageField.requestFocus();
-                startTimer(timeLimit);
+                startTimer(deadline);
             } else {
                 turnLabel.setText("Not your Turn");
                 turnLabel.setForeground(Color.black);
@@ -337,7 +602,24 @@ public class GameClientUI extends JFrame {
     }
 
     public void showVotingResult(String imposter, boolean won) {
+        if (spectating) {
+            // a spectator's result is from the crew's side
+            appendChat("System: The imposter was " + imposter + (won ? " and got caught" : " and got away"));
+            return;
+        }
+        // fetched here, off the event thread, the match is already counted when the result arrives
+        PlayerStats stats = null;
+        try {
+            stats = server.getPlayerStats(playerName);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+        PlayerStats finalStats = stats;
         SwingUtilities.invokeLater(() -> {
+            if (finalStats != null) {
+                appendChat(String.format("System: %d games played, %.0f%% won, imposter caught in %.0f%% of your crew games",
+                        finalStats.gamesPlayed(), finalStats.winRate() * 100, finalStats.imposterCatchRate() * 100));
+            }
             String message;
             if (won) {
                 message = "Congratulations! " + (client.isImposter() ?
@@ -354,16 +636,36 @@ public class GameClientUI extends JFrame {
         });
     }
 
-    public void updateVotingTimer(int timeLeft) {
+    public void updateVotingDeadline(long deadline, int durationSeconds) {
         SwingUtilities.invokeLater(() -> {
-            votingTimerLabel.setText("Voting time left: " + timeLeft + "s");
-            votingTimerLabel.setVisible(true);
+            stopVotingTimer();
+            votingTimer = new Timer(250, e -> renderVotingTimer(deadline, durationSeconds));
+            votingTimer.setInitialDelay(0);
+            votingTimer.start();
+        });
+    }
+
+    private void renderVotingTimer(long deadline, int durationSeconds) {
+        int timeLeft = clock.secondsUntil(deadline);
+        votingTimerLabel.setText("Voting time left: " + timeLeft + "s");
+        votingTimerLabel.setVisible(true);
 
-            // Update progress bar
-            int progress = (int) ((30 - timeLeft) * 100.0 / 30);
-            votingProgressBar.setValue(progress);
+        // Update progress bar
+        int progress = (int) ((durationSeconds - timeLeft) * 100.0 / durationSeconds);
+        votingProgressBar.setValue(progress);
+        if (!hasVoted) {
             votingProgressBar.setString(timeLeft + "s remaining");
-        });
+        }
+        if (timeLeft <= 0) {
+            stopVotingTimer();
+        }
+    }
+
+    private void stopVotingTimer() {
+        if (votingTimer != null) {
+            votingTimer.stop();
+            votingTimer = null;
+        }
     }
 
     public void voteRecorded() {
@@ -412,6 +714,7 @@ public class GameClientUI extends JFrame {
                     break;
                 case GAME_OVER:
                     setTitle("Imposter Game - Game Over");
+                    stopVotingTimer();
                     votingTimerLabel.setVisible(false);
                     votingProgressBar.setVisible(false);
                     disableVoting();
@@ -425,19 +728,14 @@ public class GameClientUI extends JFrame {
     private void enableVoting() {
         SwingUtilities.invokeLater(() -> {
             voteComboBox.removeAllItems();
-            try {
-                java.util.List<Player> players = server.getPlayers();
-                for (Player p : players) {
-                    if (!p.getName().equals(playerName)) {
-                        voteComboBox.addItem(p.getName());
-                    }
-                }
-                if (voteComboBox.getItemCount() > 0) {
-                    voteComboBox.setEnabled(true);
-                    voteButton.setEnabled(true);
+            for (String name : client.getRoster().getPlayerNames()) {
+                if (!name.equals(playerName)) {
+                    voteComboBox.addItem(name);
                 }
-            } catch (RemoteException e) {
-                e.printStackTrace();
+            }
+            if (voteComboBox.getItemCount() > 0 && !spectating) {
+                voteComboBox.setEnabled(true);
+                voteButton.setEnabled(true);
             }
         });
 
@@ -450,44 +748,55 @@ public class GameClientUI extends JFrame {
         votingProgressBar.setVisible(false);
     }
 
-    private void updatePlayerList() {
+    // Renders the local roster replica, no server round trip
+    void updatePlayerList() {
+        if (client == null) {
+            return;
+        }
+        RosterReplica roster = client.getRoster();
+        java.util.List<String> names = roster.getPlayerNames();
+        boolean voting = currentState == GameState.VOTING;
+        SwingUtilities.invokeLater(() -> {
+            playerListModel.clear();
+            for (String name : names) {
+                playerListModel.addElement(voting && roster.hasVoted(name) ? name + " \u2713" : name);
+            }
+        });
+    }
+
+    void resyncRoster() {
         try {
-            java.util.List<Player> players = server.getPlayers();
-            SwingUtilities.invokeLater(() -> {
-                playerListModel.clear();
-                for (Player p : players) {
-                    playerListModel.addElement(p.getName());
-                }
-            });
+            RosterSnapshot snapshot = server.getRoster(roomId, -1);
+            java.util.List<String> names = new java.util.ArrayList<>();
+            for (PlayerView p : snapshot.players()) {
+                names.add(p.getName());
+            }
+            // the snapshot says exactly which delta it includes, later deltas apply on top
+            client.getRoster().reset(snapshot.deltaVersion(), names);
+            updatePlayerList();
         } catch (RemoteException e) {
             e.printStackTrace();
         }
     }
 
-    private void startTimer(int seconds) {
+    private void startTimer(long deadline) {
         stopTimer();
-        timeLeft = seconds;
-        turnTimer = new Timer();
-        turnTimer.scheduleAtFixedRate(new TimerTask() {
-
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> {
-                    timerLabel.setText("Time left: " + timeLeft + "s");
-                    timeLeft--;
-                    if (timeLeft < 0) {
-                        stopTimer();
-                        timerLabel.setText("Time's up");
-                    }
-                });
-
+        // Swing timer ticks on the event thread, the countdown is derived from the server deadline
+        turnTimer = new Timer(250, e -> {
+            int timeLeft = clock.secondsUntil(deadline);
+            timerLabel.setText("Time left: " + timeLeft + "s");
+            if (timeLeft <= 0) {
+                stopTimer();
+                timerLabel.setText("Time's up");
             }
-        }, 0, 1000);
+        });
+        turnTimer.setInitialDelay(0);
+        turnTimer.start();
     }
 
     private void stopTimer() {
         if (turnTimer != null) {
-            turnTimer.cancel();
+            turnTimer.stop();
             turnTimer = null;
 
         }
@@ -0,0 +1,58 @@
+package client;
+
+import common.GameInterface;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Renews this player's lease on the server well inside the server's lease window,
+// so a client that dies is noticed within a couple of seconds instead of a full turn
+public class Heartbeat {
+    private static final long INTERVAL_MILLIS = 500;
+
+    private final GameInterface server;
+    private final String roomId;
+    private final String playerName;
+    private final Runnable onLost;
+    private ScheduledExecutorService scheduler;
+
+    public Heartbeat(GameInterface server, String roomId, String playerName, Runnable onLost) {
+        this.server = server;
+        this.roomId = roomId;
+        this.playerName = playerName;
+        this.onLost = onLost;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::beat, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void beat() {
+        try {
+            if (!server.heartbeat(roomId, playerName)) {
+                // the server already gave the seat up, registering again gets it back
+                stop();
+                onLost.run();
+            }
+        } catch (RemoteException e) {
+            // a missed beat is fine, the lease covers a few of them
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package client;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameInterface;
+import common.RoomPage;
+import common.RoomSummary;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Room list for picking a game to join or watch. Pages come from the server's cached
+// listing, and while the dialog is open it is subscribed to lobby changes so the page
+// refreshes by itself.
+public class LobbyBrowser extends JDialog implements GameClientInterface {
+    private static final int PAGE_SIZE = 20;
+
+    private final GameInterface server;
+    private final boolean exported;
+    private final Consumer<String> onJoin;
+    private final Consumer<String> onWatch;
+    private final DefaultListModel<String> roomListModel;
+    private final JList<String> roomList;
+    private final JCheckBox joinableOnly;
+    private final JLabel pageLabel;
+    private List<RoomSummary> rooms;
+    private int offset;
+    private int total;
+    private long shownVersion;
+
+    // exported is true when the server reaches us over RMI and needs a callback stub
+    public LobbyBrowser(JFrame owner, GameInterface server, boolean exported, Consumer<String> onJoin,
+                        Consumer<String> onWatch) {
+        super(owner, "Browse Rooms", false);
+        this.server = server;
+        this.exported = exported;
+        this.onJoin = onJoin;
+        this.onWatch = onWatch;
+        this.rooms = List.of();
+        this.shownVersion = -1;
+        setLayout(new BorderLayout(5, 5));
+
+        roomListModel = new DefaultListModel<>();
+        roomList = new JList<>(roomListModel);
+        roomList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(new JScrollPane(roomList), BorderLayout.CENTER);
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        joinableOnly = new JCheckBox("Open rooms only", true);
+        joinableOnly.addActionListener(e -> {
+            offset = 0;
+            reload();
+        });
+        topPanel.add(joinableOnly);
+        pageLabel = new JLabel();
+        topPanel.add(pageLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        JButton previousButton = new JButton("Previous");
+        previousButton.addActionListener(e -> {
+            offset = Math.max(0, offset - PAGE_SIZE);
+            reload();
+        });
+        JButton nextButton = new JButton("Next");
+        nextButton.addActionListener(e -> {
+            if (offset + PAGE_SIZE < total) {
+                offset += PAGE_SIZE;
+                reload();
+            }
+        });
+        JButton joinButton = new JButton("Join");
+        joinButton.addActionListener(e -> choose(onJoin));
+        JButton watchButton = new JButton("Watch");
+        watchButton.addActionListener(e -> choose(onWatch));
+        bottomPanel.add(previousButton);
+        bottomPanel.add(nextButton);
+        bottomPanel.add(joinButton);
+        bottomPanel.add(watchButton);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        setSize(420, 420);
+        setLocationRelativeTo(owner);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                unsubscribe();
+            }
+        });
+    }
+
+    public void open() {
+        try {
+            GameClientInterface callback = exported ? (GameClientInterface) UnicastRemoteObject.exportObject(this, 0) : this;
+            server.subscribeLobby(callback);
+        } catch (RemoteException e) {
+            // still usable, just without live updates
+            e.printStackTrace();
+        }
+        reload();
+        setVisible(true);
+    }
+
+    private void reload() {
+        try {
+            RoomPage page = server.listRooms(offset, PAGE_SIZE, joinableOnly.isSelected());
+            rooms = page.rooms();
+            total = page.total();
+            shownVersion = page.version();
+            roomListModel.clear();
+            for (RoomSummary room : rooms) {
+                roomListModel.addElement(String.format("%-24s %d/%d  %s", room.roomId(), room.playerCount(),
+                        room.capacity(), room.state()));
+            }
+            int last = Math.min(total, offset + rooms.size());
+            pageLabel.setText(total == 0 ? "No rooms" : (offset + 1) + "-" + last + " of " + total);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            pageLabel.setText("Failed to load rooms");
+        }
+    }
+
+    private void choose(Consumer<String> action) {
+        int selected = roomList.getSelectedIndex();
+        if (selected < 0 || selected >= rooms.size()) {
+            return;
+        }
+        String roomId = rooms.get(selected).roomId();
+        dispose();
+        action.accept(roomId);
+    }
+
+    private void unsubscribe() {
+        try {
+            server.unsubscribeLobby(this);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+        if (exported) {
+            try {
+                UnicastRemoteObject.unexportObject(this, true);
+            } catch (NoSuchObjectException e) {
+                // never exported
+            }
+        }
+    }
+
+    @Override
+    public void onEvents(List<GameEvent> events) throws RemoteException {
+        for (GameEvent event : events) {
+            // the page is fetched again rather than patched, it may have shifted
+            if (event instanceof GameEvent.LobbyChanged changed && changed.version() > shownVersion) {
+                SwingUtilities.invokeLater(this::reload);
+            }
+        }
+    }
+
+    @Override
+    public String getPlayerName() throws RemoteException {
+        return "lobby";
+    }
+}
@@ -0,0 +1,72 @@
+package client;
+
+import common.GameEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Local copy of the room roster, kept current by the deltas the server pushes
+public class RosterReplica {
+    // player name -> has voted, in join order
+    private final Map<String, Boolean> players = new LinkedHashMap<>();
+    private long version = -1;
+
+    // Returns false when the delta does not follow the local version and a resync is needed
+    public synchronized boolean apply(GameEvent.RosterChange event) {
+        switch (event) {
+            case GameEvent.RosterReset e -> {
+                reset(e.version(), e.playerNames());
+                return true;
+            }
+            case GameEvent.PlayerJoined e -> {
+                if (!advance(e.version())) {
+                    return false;
+                }
+                players.put(e.playerName(), false);
+            }
+            case GameEvent.PlayerLeft e -> {
+                if (!advance(e.version())) {
+                    return false;
+                }
+                players.remove(e.playerName());
+            }
+            case GameEvent.PlayerUpdated e -> {
+                if (!advance(e.version())) {
+                    return false;
+                }
+                players.put(e.playerName(), e.voted());
+            }
+        }
+        return true;
+    }
+
+    public synchronized void reset(long version, List<String> playerNames) {
+        this.version = version;
+        players.clear();
+        for (String name : playerNames) {
+            players.put(name, false);
+        }
+    }
+
+    private boolean advance(long next) {
+        if (next != version + 1) {
+            return false;
+        }
+        version = next;
+        return true;
+    }
+
+    public synchronized List<String> getPlayerNames() {
+        return new ArrayList<>(players.keySet());
+    }
+
+    public synchronized boolean hasVoted(String playerName) {
+        return players.getOrDefault(playerName, false);
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+}
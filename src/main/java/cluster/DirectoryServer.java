@@ -0,0 +1,168 @@
+package cluster;
+
+import common.DirectoryInterface;
+import common.NodeInfo;
+
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Resolves room ids to game nodes. New rooms go to the node the shard ring picks, a room
+// that is already running is pinned to the node it runs on until it closes, so a node
+// joining or leaving rebalances future rooms without moving live games. Nodes hold a
+// lease kept alive by heartbeats, a node that stops calling is dropped with its rooms.
+public class DirectoryServer extends UnicastRemoteObject implements DirectoryInterface {
+    public static final String NAME = "ImposterDirectory";
+    public static final int DEFAULT_PORT = 1098;
+    public static final long LEASE_MILLIS = 5000;
+
+    private final Map<String, Member> members;
+    private final Map<String, String> pinned;
+    private final ScheduledExecutorService leaseChecker;
+    private volatile ShardRing ring;
+    private long version;
+
+    public DirectoryServer() throws RemoteException {
+        super();
+        this.members = new ConcurrentHashMap<>();
+        this.pinned = new ConcurrentHashMap<>();
+        this.ring = ShardRing.EMPTY;
+        this.leaseChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "directory-leases");
+            t.setDaemon(true);
+            return t;
+        });
+        leaseChecker.scheduleAtFixedRate(this::expireLeases, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized long join(NodeInfo node) throws RemoteException {
+        Member previous = members.put(node.nodeId(), new Member(node, System.currentTimeMillis() + LEASE_MILLIS));
+        if (previous == null) {
+            ring = ring.with(node.nodeId());
+            version++;
+            System.out.println("Node joined: " + node + ", " + members.size() + " nodes");
+        }
+        return version;
+    }
+
+    @Override
+    public boolean heartbeat(String nodeId) throws RemoteException {
+        Member member = members.get(nodeId);
+        if (member == null) {
+            return false;
+        }
+        member.leaseExpiry = System.currentTimeMillis() + LEASE_MILLIS;
+        return true;
+    }
+
+    @Override
+    public synchronized void leave(String nodeId) throws RemoteException {
+        drop(nodeId, "left");
+    }
+
+    // Reports are async, one can arrive after the ring has moved the id to another node.
+    // The room stays where it was first reported from for as long as that node is alive.
+    @Override
+    public synchronized void roomOpened(String nodeId, String roomId) throws RemoteException {
+        if (!members.containsKey(nodeId)) {
+            return;
+        }
+        String current = pinned.get(roomId);
+        if (current == null || !members.containsKey(current)) {
+            pinned.put(roomId, nodeId);
+        } else if (!current.equals(nodeId)) {
+            System.out.println("Room " + roomId + " opened on " + nodeId + " but runs on " + current);
+        }
+    }
+
+    @Override
+    public void roomClosed(String nodeId, String roomId) throws RemoteException {
+        pinned.remove(roomId, nodeId);
+    }
+
+    @Override
+    public NodeInfo resolve(String roomId) throws RemoteException {
+        String nodeId = pinned.get(roomId);
+        Member member = nodeId != null ? members.get(nodeId) : null;
+        if (member == null) {
+            String owner = ring.owner(roomId);
+            member = owner != null ? members.get(owner) : null;
+        }
+        return member != null ? member.node : null;
+    }
+
+    @Override
+    public List<NodeInfo> getNodes() throws RemoteException {
+        List<NodeInfo> nodes = new ArrayList<>();
+        for (Member member : members.values()) {
+            nodes.add(member.node);
+        }
+        return nodes;
+    }
+
+    private synchronized void expireLeases() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Member> entry : members.entrySet()) {
+            if (entry.getValue().leaseExpiry < now) {
+                drop(entry.getKey(), "timed out");
+            }
+        }
+    }
+
+    private void drop(String nodeId, String reason) {
+        if (members.remove(nodeId) == null) {
+            return;
+        }
+        ring = ring.without(nodeId);
+        version++;
+        // its games are gone, the ids resolve through the ring again
+        pinned.values().removeIf(nodeId::equals);
+        System.out.println("Node " + reason + ": " + nodeId + ", " + members.size() + " nodes");
+    }
+
+    public void shutdown() {
+        leaseChecker.shutdownNow();
+    }
+
+    private static final class Member {
+        private final NodeInfo node;
+        private volatile long leaseExpiry;
+
+        Member(NodeInfo node, long leaseExpiry) {
+            this.node = node;
+            this.leaseExpiry = leaseExpiry;
+        }
+    }
+
+    // Stub for a directory at host:port, the port defaults to DEFAULT_PORT
+    public static DirectoryInterface lookup(String address) throws RemoteException, NotBoundException {
+        int colon = address.lastIndexOf(':');
+        String host = colon >= 0 ? address.substring(0, colon) : address;
+        int port = colon >= 0 ? Integer.parseInt(address.substring(colon + 1)) : DEFAULT_PORT;
+        return (DirectoryInterface) LocateRegistry.getRegistry(host, port).lookup(NAME);
+    }
+
+    // Usage: DirectoryServer [port]
+    public static void main(String[] args) {
+        try {
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+            Registry registry = LocateRegistry.createRegistry(port);
+            DirectoryServer directory = new DirectoryServer();
+            registry.rebind(NAME, directory);
+            System.out.println("Directory ready on port " + port);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
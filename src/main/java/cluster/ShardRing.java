@@ -0,0 +1,94 @@
+package cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Consistent hash ring of node ids. Every node is placed at many points so shards stay
+// even, and adding or removing a node only moves the keys next to its own points, about
+// 1/n of them. Immutable, a membership change builds a new ring.
+public final class ShardRing {
+    public static final int VIRTUAL_NODES = 128;
+    public static final ShardRing EMPTY = new ShardRing(List.of());
+
+    private final Set<String> nodes;
+    // sorted hash points and the node owning each one
+    private final long[] points;
+    private final String[] owners;
+
+    public ShardRing(Collection<String> nodeIds) {
+        this.nodes = Set.copyOf(nodeIds);
+        int count = nodes.size() * VIRTUAL_NODES;
+        long[] hashes = new long[count];
+        String[] names = new String[count];
+        int i = 0;
+        for (String node : new TreeSet<>(nodes)) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                hashes[i] = hash(node + "#" + v);
+                names[i] = node;
+                i++;
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int j = 0; j < count; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int j = 0; j < count; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = names[order[j]];
+        }
+    }
+
+    public ShardRing with(String nodeId) {
+        List<String> next = new ArrayList<>(nodes);
+        next.add(nodeId);
+        return new ShardRing(next);
+    }
+
+    public ShardRing without(String nodeId) {
+        List<String> next = new ArrayList<>(nodes);
+        next.remove(nodeId);
+        return new ShardRing(next);
+    }
+
+    // First node point at or after the key's hash, wrapping around; null on an empty ring
+    public String owner(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // FNV-1a, then a final avalanche so similar ids like room-1 and room-2 land far apart
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,26 @@
+package common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+// Cluster directory: tracks the live game nodes and tells clients which one owns a room
+public interface DirectoryInterface extends Remote {
+    // node methods, returns the directory's membership version after the join
+    long join(NodeInfo node) throws RemoteException;
+
+    // Keeps the node's lease alive, false means the directory dropped it and it must join again
+    boolean heartbeat(String nodeId) throws RemoteException;
+
+    void leave(String nodeId) throws RemoteException;
+
+    // A room that is running stays on its node even when the ring moves its id elsewhere
+    void roomOpened(String nodeId, String roomId) throws RemoteException;
+
+    void roomClosed(String nodeId, String roomId) throws RemoteException;
+
+    // client methods, null when no node is up
+    NodeInfo resolve(String roomId) throws RemoteException;
+
+    List<NodeInfo> getNodes() throws RemoteException;
+}
@@ -0,0 +1,55 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+// Typed events delivered to clients in ordered batches through GameClientInterface.onEvents
+public sealed interface GameEvent extends Serializable {
+
+    record StateChanged(GameState state) implements GameEvent {
+    }
+
+    record Chat(String playerName, String message) implements GameEvent {
+    }
+
+    // deadline is absolute server time in millis, 0 when the turn is over
+    record YourTurn(boolean yourTurn, long deadline) implements GameEvent {
+    }
+
+    record WordAssigned(String word, boolean imposter, String hint) implements GameEvent {
+    }
+
+    record VotingDeadline(long deadline, int durationSeconds) implements GameEvent {
+    }
+
+    record VoteRecorded() implements GameEvent {
+    }
+
+    record VotingResult(String imposter, boolean won, String resultMessage) implements GameEvent {
+    }
+
+    // the matchmaker seated this player, later calls go to roomId
+    record RoomAssigned(String roomId) implements GameEvent {
+    }
+
+    // Lobby subscribers get the rooms that changed since the previous listing version
+    record LobbyChanged(long version, List<RoomSummary> updated, List<String> removed) implements GameEvent {
+    }
+
+    // Roster deltas, version grows by one with every change so a replica can spot gaps
+    sealed interface RosterChange extends GameEvent {
+        long version();
+    }
+
+    record RosterReset(long version, List<String> playerNames) implements RosterChange {
+    }
+
+    record PlayerJoined(long version, String playerName) implements RosterChange {
+    }
+
+    record PlayerLeft(long version, String playerName) implements RosterChange {
+    }
+
+    record PlayerUpdated(long version, String playerName, boolean voted) implements RosterChange {
+    }
+}
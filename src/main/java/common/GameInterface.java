@@ -5,19 +5,63 @@ import java.rmi.RemoteException;
 import java.util.List;
 
 public interface GameInterface extends Remote {
-    // server methods
-    boolean registerPlayer(String playerName, GameClientInterface client) throws RemoteException;
+    // server wall clock in millis, used by clients to estimate their clock offset
+    long getServerTime() throws RemoteException;
 
-    void startGame() throws RemoteException;
+    // room methods
+    String createRoom() throws RemoteException;
 
-    void sendMessage(String playerName, String message) throws RemoteException;
+    List<String> getRoomIds() throws RemoteException;
 
-    void submitVote(String playerName, String votedPlayer) throws RemoteException;
+    // lobby, rooms sorted by id, joinableOnly keeps waiting rooms with a free seat
+    RoomPage listRooms(int offset, int limit, boolean joinableOnly) throws RemoteException;
 
-    void replayGame() throws RemoteException;
+    // The client gets the full listing as a LobbyChanged event, then only the changes
+    void subscribeLobby(GameClientInterface client) throws RemoteException;
 
-    List<Player> getPlayers() throws RemoteException;
+    void unsubscribeLobby(GameClientInterface client) throws RemoteException;
 
-    GameState getGameState() throws RemoteException;
-}
+    // matchmaking, a queued player is seated in a fresh room and told so with RoomAssigned
+    boolean joinQueue(String playerName, GameClientInterface client) throws RemoteException;
+
+    // False when the player was already seated or wasn't queued
+    boolean leaveQueue(String playerName) throws RemoteException;
+
+    // server methods, every call is scoped to a room
+    boolean registerPlayer(String roomId, String playerName, GameClientInterface client) throws RemoteException;
+
+    void leaveRoom(String roomId, String playerName) throws RemoteException;
+
+    // Watches a room read-only, false for an unknown or closed room
+    boolean spectate(String roomId, GameClientInterface client) throws RemoteException;
+
+    void stopSpectating(String roomId, GameClientInterface client) throws RemoteException;
+
+    // Keeps the player's lease alive, false means the server dropped the seat
+    boolean heartbeat(String roomId, String playerName) throws RemoteException;
+
+    void startGame(String roomId) throws RemoteException;
+
+    void sendMessage(String roomId, String playerName, String message) throws RemoteException;
 
+    void submitVote(String roomId, String playerName, String votedPlayer) throws RemoteException;
+
+    void replayGame(String roomId) throws RemoteException;
+
+    // Public view of the room's players, safe to hand to any client
+    List<PlayerView> getPlayers(String roomId) throws RemoteException;
+
+    // Current roster snapshot, or null when its version still equals knownVersion
+    RosterSnapshot getRoster(String roomId, long knownVersion) throws RemoteException;
+
+    GameState getGameState(String roomId) throws RemoteException;
+
+    // Lifetime results of a player across every finished match on this server
+    PlayerStats getPlayerStats(String playerName) throws RemoteException;
+
+    // One page of the leaderboard, offset 0 is the top rated player
+    List<LeaderboardEntry> getLeaderboard(int offset, int limit) throws RemoteException;
+
+    // Rank of one player, null when they haven't finished a match yet
+    LeaderboardEntry getRank(String playerName) throws RemoteException;
+}
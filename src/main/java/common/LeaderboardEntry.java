@@ -0,0 +1,7 @@
+package common;
+
+import java.io.Serializable;
+
+// One row of the leaderboard, rank starts at 1
+public record LeaderboardEntry(int rank, String playerName, int rating, int gamesPlayed) implements Serializable {
+}
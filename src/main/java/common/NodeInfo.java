@@ -0,0 +1,7 @@
+package common;
+
+import java.io.Serializable;
+
+// Address of one game server node, host is what clients should dial
+public record NodeInfo(String nodeId, String host, int rmiPort, int nioPort) implements Serializable {
+}
@@ -0,0 +1,22 @@
+package common;
+
+import java.io.Serializable;
+
+// Lifetime numbers for one player. Crew games are the ones where the player was not the imposter.
+public record PlayerStats(String playerName, int gamesPlayed, int wins, int imposterGames, int timesCaught,
+                          int crewGames, int imposterCatches) implements Serializable {
+
+    public double winRate() {
+        return gamesPlayed == 0 ? 0 : (double) wins / gamesPlayed;
+    }
+
+    // how often the imposter was caught in this player's crew games
+    public double imposterCatchRate() {
+        return crewGames == 0 ? 0 : (double) imposterCatches / crewGames;
+    }
+
+    // how often this player got away with it as the imposter
+    public double escapeRate() {
+        return imposterGames == 0 ? 0 : (double) (imposterGames - timesCaught) / imposterGames;
+    }
+}
@@ -0,0 +1,65 @@
+package common;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+// What any player may know about another player. Word, hint and imposter flag stay on the
+// server, vote counts are only filled in once the result is out. Read-only once built,
+// the no-arg constructor exists for Externalizable only.
+public final class PlayerView implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private boolean connected;
+    private boolean voted;
+    private int votes;
+
+    public PlayerView() {
+    }
+
+    public PlayerView(String name, boolean connected, boolean voted, int votes) {
+        this.name = name;
+        this.connected = connected;
+        this.voted = voted;
+        this.votes = votes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean hasVoted() {
+        return voted;
+    }
+
+    public int getVotes() {
+        return votes;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeByte((connected ? 1 : 0) | (voted ? 2 : 0));
+        out.writeShort(votes);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        name = in.readUTF();
+        int flags = in.readByte();
+        connected = (flags & 1) != 0;
+        voted = (flags & 2) != 0;
+        votes = in.readShort();
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerView[" + name + ", votes=" + votes + "]";
+    }
+}
@@ -0,0 +1,8 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+// One page of the room listing, total counts every room that matches the filter
+public record RoomPage(long version, int total, List<RoomSummary> rooms) implements Serializable {
+}
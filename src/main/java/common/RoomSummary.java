@@ -0,0 +1,16 @@
+package common;
+
+import java.io.Serializable;
+
+// Lobby view of one room
+public record RoomSummary(String roomId, int playerCount, int capacity, GameState state) implements Serializable {
+
+    public int seatsFree() {
+        return Math.max(0, capacity - playerCount);
+    }
+
+    // Open for new players: still waiting and not full
+    public boolean isJoinable() {
+        return state == GameState.WAITING_FOR_PLAYERS && seatsFree() > 0;
+    }
+}
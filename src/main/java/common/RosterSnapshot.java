@@ -0,0 +1,16 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+// Immutable roster of a room as of one point in time. version changes whenever anything in
+// players changes, so a caller holding the same version can skip the work. deltaVersion is
+// the last roster delta folded in, clients reset their replica to it.
+public record RosterSnapshot(long version, long deltaVersion, List<PlayerView> players) implements Serializable {
+
+    public static final RosterSnapshot EMPTY = new RosterSnapshot(0, 0, List.of());
+
+    public RosterSnapshot {
+        players = List.copyOf(players);
+    }
+}
@@ -0,0 +1,244 @@
+package journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Segmented append-only log of everything needed to resume unfinished matches.
+// append only queues the record, so the room loop never waits on the disk. One writer
+// thread takes whatever has queued up, writes it with a single gathering write and
+// forces it once for the whole batch. When a segment fills up the next one starts with a
+// snapshot of every live game and the older segments are deleted.
+public class EventJournal {
+    private static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    // queued by close, interrupting the writer would close the FileChannel under it
+    private static final JournalRecord STOP = new JournalRecord.Ended("");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<JournalRecord> queue;
+    // live games as of the last record written, the writer's own copy
+    private final Map<String, RecoveredGame> games;
+    private final Map<String, RecoveredGame> recovered;
+    private final Thread writer;
+    private FileChannel segment;
+    private long segmentNumber;
+    private volatile boolean running;
+
+    private EventJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.queue = new LinkedBlockingQueue<>();
+        this.games = new HashMap<>();
+        if (directory != null) {
+            Files.createDirectories(directory);
+            replay();
+            this.recovered = Map.copyOf(games);
+            roll();
+            this.running = true;
+            this.writer = new Thread(this::run, "journal-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.recovered = Map.of();
+            this.writer = null;
+        }
+    }
+
+    public static EventJournal open(Path directory) throws IOException {
+        return new EventJournal(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public static EventJournal open(Path directory, long segmentBytes) throws IOException {
+        return new EventJournal(directory, segmentBytes);
+    }
+
+    // A journal that keeps nothing, for servers started without one
+    public static EventJournal disabled() {
+        try {
+            return new EventJournal(null, DEFAULT_SEGMENT_BYTES);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Journal in -Dimposter.journal, disabled when unset or when it can't be opened
+    public static EventJournal fromSystemProperties() {
+        String path = System.getProperty("imposter.journal");
+        if (path == null) {
+            return disabled();
+        }
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            System.err.println("Could not open journal " + path + ", running without one");
+            e.printStackTrace();
+            return disabled();
+        }
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    // Unfinished games found when the journal was opened
+    public Map<String, RecoveredGame> getRecoveredGames() {
+        return recovered;
+    }
+
+    public void append(JournalRecord record) {
+        if (running) {
+            queue.add(record);
+        }
+    }
+
+    // Writes out what is queued and stops, appends after this are ignored
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        queue.add(STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<JournalRecord> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            // everything queued before close is still written
+            stopping = batch.remove(STOP);
+            try {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (IOException | RuntimeException e) {
+                // the writer has to outlive any one batch or the queue grows without bound
+                e.printStackTrace();
+            }
+            batch.clear();
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // group commit, one write and one force for the whole batch
+    private void write(List<JournalRecord> batch) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        for (JournalRecord record : batch) {
+            ByteBuffer buffer;
+            try {
+                buffer = JournalCodec.encode(record);
+            } catch (IOException | RuntimeException e) {
+                // one record that can't be encoded is dropped alone, the rest of the batch still goes out
+                System.err.println("Skipping journal record " + record.getClass().getSimpleName()
+                        + " for room " + record.roomId() + ": " + e);
+                continue;
+            }
+            fold(record);
+            buffers.add(buffer);
+        }
+        writeFully(buffers.toArray(new ByteBuffer[0]));
+        segment.force(false);
+        if (segment.position() >= segmentBytes) {
+            roll();
+        }
+    }
+
+    private void fold(JournalRecord record) {
+        RecoveredGame next = RecoveredGame.apply(games.get(record.roomId()), record);
+        if (next != null) {
+            games.put(record.roomId(), next);
+        } else {
+            games.remove(record.roomId());
+        }
+    }
+
+    // Starts a new segment holding a snapshot of every live game, then drops the old ones
+    private void roll() throws IOException {
+        List<Path> old = segments();
+        FileChannel previous = segment;
+        segmentNumber++;
+        Path path = directory.resolve(String.format("%s%016d%s", PREFIX, segmentNumber, SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        List<ByteBuffer> snapshots = new ArrayList<>();
+        for (RecoveredGame game : games.values()) {
+            snapshots.add(JournalCodec.encode(new JournalRecord.Snapshot(game.roomId(), game)));
+        }
+        writeFully(snapshots.toArray(new ByteBuffer[0]));
+        segment.force(true);
+        if (previous != null) {
+            previous.close();
+        }
+        for (Path stale : old) {
+            Files.deleteIfExists(stale);
+        }
+    }
+
+    private void writeFully(ByteBuffer[] buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= segment.write(buffers);
+        }
+    }
+
+    private void replay() throws IOException {
+        for (Path path : segments()) {
+            String name = path.getFileName().toString();
+            segmentNumber = Math.max(segmentNumber,
+                    Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            try (InputStream file = Files.newInputStream(path);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+                JournalRecord record;
+                while ((record = JournalCodec.decode(in)) != null) {
+                    fold(record);
+                }
+            }
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        // fixed width numbers sort in order
+        Collections.sort(paths);
+        return paths;
+    }
+}
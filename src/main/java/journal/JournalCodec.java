@@ -0,0 +1,190 @@
+package journal;
+
+import common.GameState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// On disk form of a record: int length, int crc32 of the body, then the body.
+// A torn write at the end of a segment fails the length or checksum check and ends the replay.
+final class JournalCodec {
+    private static final byte STARTED = 1;
+    private static final byte ROUND = 2;
+    private static final byte CHAT = 3;
+    private static final byte TURN_SKIPPED = 4;
+    private static final byte VOTING = 5;
+    private static final byte VOTE = 6;
+    private static final byte RESULT = 7;
+    private static final byte ENDED = 8;
+    private static final byte SNAPSHOT = 9;
+
+    static final int HEADER = 8;
+    static final int MAX_BODY = 1 << 20;
+
+    private JournalCodec() {
+    }
+
+    static ByteBuffer encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        switch (record) {
+            case JournalRecord.Started r -> {
+                out.writeByte(STARTED);
+                out.writeUTF(r.roomId());
+                writeGame(out, r.players(), r.imposter(), r.word(), r.hint());
+            }
+            case JournalRecord.Round r -> {
+                out.writeByte(ROUND);
+                out.writeUTF(r.roomId());
+                out.writeByte(r.round());
+            }
+            case JournalRecord.Chat r -> {
+                out.writeByte(CHAT);
+                out.writeUTF(r.roomId());
+                out.writeUTF(r.playerName());
+                out.writeUTF(r.message());
+            }
+            case JournalRecord.TurnSkipped r -> {
+                out.writeByte(TURN_SKIPPED);
+                out.writeUTF(r.roomId());
+            }
+            case JournalRecord.Voting r -> {
+                out.writeByte(VOTING);
+                out.writeUTF(r.roomId());
+            }
+            case JournalRecord.Vote r -> {
+                out.writeByte(VOTE);
+                out.writeUTF(r.roomId());
+                out.writeUTF(r.voter());
+                out.writeUTF(r.target());
+            }
+            case JournalRecord.Result r -> {
+                out.writeByte(RESULT);
+                out.writeUTF(r.roomId());
+            }
+            case JournalRecord.Ended r -> {
+                out.writeByte(ENDED);
+                out.writeUTF(r.roomId());
+            }
+            case JournalRecord.Snapshot r -> {
+                RecoveredGame g = r.game();
+                out.writeByte(SNAPSHOT);
+                out.writeUTF(r.roomId());
+                writeGame(out, g.players(), g.imposter(), g.word(), g.hint());
+                out.writeByte(g.state().ordinal());
+                out.writeByte(g.round());
+                out.writeByte(g.turnIndex());
+                out.writeByte(g.votes().size());
+                for (Map.Entry<String, String> vote : g.votes().entrySet()) {
+                    out.writeUTF(vote.getKey());
+                    out.writeUTF(vote.getValue());
+                }
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buffer.capacity() - HEADER;
+        // decode would stop the replay at a record this large
+        if (length > MAX_BODY) {
+            throw new IOException("Journal record too large: " + length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer;
+    }
+
+    // Next record of a segment, null at the end or at the first damaged record
+    static JournalRecord decode(DataInputStream in) throws IOException {
+        int length;
+        int checksum;
+        byte[] body;
+        try {
+            length = in.readInt();
+            checksum = in.readInt();
+            if (length <= 0 || length > MAX_BODY) {
+                return null;
+            }
+            body = in.readNBytes(length);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if (body.length != length || (int) crc.getValue() != checksum) {
+            return null;
+        }
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = data.readByte();
+        String roomId = data.readUTF();
+        switch (type) {
+            case STARTED: {
+                List<String> players = readPlayers(data);
+                return new JournalRecord.Started(roomId, players, data.readByte(), data.readUTF(), data.readUTF());
+            }
+            case ROUND:
+                return new JournalRecord.Round(roomId, data.readByte());
+            case CHAT:
+                return new JournalRecord.Chat(roomId, data.readUTF(), data.readUTF());
+            case TURN_SKIPPED:
+                return new JournalRecord.TurnSkipped(roomId);
+            case VOTING:
+                return new JournalRecord.Voting(roomId);
+            case VOTE:
+                return new JournalRecord.Vote(roomId, data.readUTF(), data.readUTF());
+            case RESULT:
+                return new JournalRecord.Result(roomId);
+            case ENDED:
+                return new JournalRecord.Ended(roomId);
+            case SNAPSHOT: {
+                List<String> players = readPlayers(data);
+                int imposter = data.readByte();
+                String word = data.readUTF();
+                String hint = data.readUTF();
+                GameState state = GameState.values()[data.readByte()];
+                int round = data.readByte();
+                int turnIndex = data.readByte();
+                int voteCount = data.readByte();
+                Map<String, String> votes = new LinkedHashMap<>();
+                for (int i = 0; i < voteCount; i++) {
+                    votes.put(data.readUTF(), data.readUTF());
+                }
+                return new JournalRecord.Snapshot(roomId,
+                        new RecoveredGame(roomId, players, imposter, word, hint, state, round, turnIndex, votes));
+            }
+            default:
+                throw new IOException("Unknown journal record " + type);
+        }
+    }
+
+    private static void writeGame(DataOutputStream out, List<String> players, int imposter, String word, String hint)
+            throws IOException {
+        out.writeByte(players.size());
+        for (String player : players) {
+            out.writeUTF(player);
+        }
+        out.writeByte(imposter);
+        out.writeUTF(word);
+        out.writeUTF(hint);
+    }
+
+    private static List<String> readPlayers(DataInputStream in) throws IOException {
+        int count = in.readByte();
+        List<String> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(in.readUTF());
+        }
+        return players;
+    }
+}
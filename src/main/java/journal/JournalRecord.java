@@ -0,0 +1,41 @@
+package journal;
+
+import java.util.List;
+
+// Facts about a running match, in the order the room applied them. Replaying them on top
+// of the last Snapshot gives back where every unfinished game stood.
+public sealed interface JournalRecord {
+    String roomId();
+
+    // players in turn order, imposter is an index into players
+    record Started(String roomId, List<String> players, int imposter, String word, String hint) implements JournalRecord {
+    }
+
+    record Round(String roomId, int round) implements JournalRecord {
+    }
+
+    // a chat line always ends the speaker's turn
+    record Chat(String roomId, String playerName, String message) implements JournalRecord {
+    }
+
+    record TurnSkipped(String roomId) implements JournalRecord {
+    }
+
+    record Voting(String roomId) implements JournalRecord {
+    }
+
+    // target is empty for an abstention
+    record Vote(String roomId, String voter, String target) implements JournalRecord {
+    }
+
+    record Result(String roomId) implements JournalRecord {
+    }
+
+    // the match was replayed or the room closed, nothing left to recover
+    record Ended(String roomId) implements JournalRecord {
+    }
+
+    // full state of one game, written at the start of every segment
+    record Snapshot(String roomId, RecoveredGame game) implements JournalRecord {
+    }
+}
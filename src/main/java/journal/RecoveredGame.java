@@ -0,0 +1,67 @@
+package journal;
+
+import common.GameState;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Where one unfinished match stood, rebuilt from the journal. votes maps voter to target,
+// an empty target is an abstention.
+public record RecoveredGame(String roomId, List<String> players, int imposter, String word, String hint,
+                            GameState state, int round, int turnIndex, Map<String, String> votes) {
+
+    public RecoveredGame {
+        players = List.copyOf(players);
+        votes = Map.copyOf(votes);
+    }
+
+    // Folds one record into the game, null means the game is over and need not be kept
+    static RecoveredGame apply(RecoveredGame game, JournalRecord record) {
+        switch (record) {
+            case JournalRecord.Started r -> {
+                return new RecoveredGame(r.roomId(), r.players(), r.imposter(), r.word(), r.hint(),
+                        GameState.WORD_DISTRIBUTION, 0, 0, Map.of());
+            }
+            case JournalRecord.Snapshot r -> {
+                return r.game();
+            }
+            case JournalRecord.Result r -> {
+                return null;
+            }
+            case JournalRecord.Ended r -> {
+                return null;
+            }
+            default -> {
+                // everything else only makes sense for a game we know about
+            }
+        }
+        if (game == null) {
+            return null;
+        }
+        return switch (record) {
+            case JournalRecord.Round r -> game.with(roundState(r.round()), r.round(), 0, game.votes());
+            case JournalRecord.Chat r -> game.with(game.state(), game.round(), game.turnIndex() + 1, game.votes());
+            case JournalRecord.TurnSkipped r -> game.with(game.state(), game.round(), game.turnIndex() + 1, game.votes());
+            case JournalRecord.Voting r -> game.with(GameState.VOTING, game.round(), game.turnIndex(), Map.of());
+            case JournalRecord.Vote r -> {
+                Map<String, String> votes = new LinkedHashMap<>(game.votes());
+                votes.putIfAbsent(r.voter(), r.target());
+                yield game.with(game.state(), game.round(), game.turnIndex(), votes);
+            }
+            default -> game;
+        };
+    }
+
+    private RecoveredGame with(GameState state, int round, int turnIndex, Map<String, String> votes) {
+        return new RecoveredGame(roomId, players, imposter, word, hint, state, round, turnIndex, votes);
+    }
+
+    private static GameState roundState(int round) {
+        return switch (round) {
+            case 1 -> GameState.ROUND_1;
+            case 2 -> GameState.ROUND_2;
+            default -> GameState.ROUND_3;
+        };
+    }
+}
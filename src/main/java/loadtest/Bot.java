@@ -0,0 +1,120 @@
+package loadtest;
+
+import client.RosterReplica;
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameInterface;
+import common.GameState;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One scripted player: chats as soon as its turn starts, votes for a random other player,
+// and the first bot of each room replays and restarts the game when it ends. Chat lines
+// carry the sender's send time, every bot is in the same JVM so the receiver can tell
+// how long the callback took.
+final class Bot implements GameClientInterface {
+    private static final String STAMP = "t=";
+
+    private final String name;
+    private final String roomId;
+    private final boolean leader;
+    private final LoadStats stats;
+    private final RosterReplica roster;
+    private GameInterface server;
+
+    Bot(String name, String roomId, boolean leader, LoadStats stats) {
+        this.name = name;
+        this.roomId = roomId;
+        this.leader = leader;
+        this.stats = stats;
+        this.roster = new RosterReplica();
+    }
+
+    boolean register(GameInterface server, GameClientInterface callback) {
+        this.server = server;
+        return Boolean.TRUE.equals(stats.timed(() -> server.registerPlayer(roomId, name, callback)));
+    }
+
+    void heartbeat() {
+        if (server != null) {
+            stats.timed(stats.heartbeats, () -> server.heartbeat(roomId, name));
+        }
+    }
+
+    void startGame() {
+        stats.timed(() -> {
+            server.startGame(roomId);
+            return null;
+        });
+    }
+
+    void leave() {
+        if (server != null) {
+            stats.timed(() -> {
+                server.leaveRoom(roomId, name);
+                return null;
+            });
+        }
+    }
+
+    GameInterface getServer() {
+        return server;
+    }
+
+    @Override
+    public void onEvents(List<GameEvent> events) throws RemoteException {
+        for (GameEvent event : events) {
+            switch (event) {
+                case GameEvent.Chat e -> {
+                    if (e.message().startsWith(STAMP)) {
+                        stats.callbacks.record(System.nanoTime() - Long.parseLong(e.message().substring(STAMP.length())));
+                    }
+                }
+                case GameEvent.YourTurn e -> {
+                    if (e.yourTurn()) {
+                        String line = STAMP + System.nanoTime();
+                        stats.timed(() -> {
+                            server.sendMessage(roomId, name, line);
+                            return null;
+                        });
+                    }
+                }
+                case GameEvent.StateChanged e -> stateChanged(e.state());
+                case GameEvent.VotingResult e -> {
+                    if (leader) {
+                        stats.games.increment();
+                    }
+                }
+                case GameEvent.RosterChange e -> roster.apply(e);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void stateChanged(GameState state) {
+        if (state == GameState.VOTING) {
+            List<String> others = roster.getPlayerNames().stream().filter(n -> !n.equals(name)).toList();
+            if (!others.isEmpty()) {
+                String target = others.get(ThreadLocalRandom.current().nextInt(others.size()));
+                stats.timed(() -> {
+                    server.submitVote(roomId, name, target);
+                    return null;
+                });
+            }
+        } else if (state == GameState.GAME_OVER && leader) {
+            stats.timed(() -> {
+                server.replayGame(roomId);
+                return null;
+            });
+            startGame();
+        }
+    }
+
+    @Override
+    public String getPlayerName() throws RemoteException {
+        return name;
+    }
+}
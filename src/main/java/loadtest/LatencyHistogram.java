@@ -0,0 +1,76 @@
+package loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram. Values are bucketed by power of two with 16 linear steps
+// inside each power, so any percentile is within about 6% of the true value while
+// recording stays one array increment from any number of threads.
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    // Upper edge of the bucket holding the given fraction of values, 0.99 for p99
+    public long percentile(double fraction) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(lowerBound(i + 1) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        if (exponent > 62) {
+            return Long.MAX_VALUE;
+        }
+        int sub = index % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+}
@@ -0,0 +1,43 @@
+package loadtest;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters shared by every bot in a run
+final class LoadStats {
+    final LatencyHistogram calls;
+    final LatencyHistogram callbacks;
+    // heartbeats are tiny and constant, kept apart so they do not dilute the game call percentiles
+    final LatencyHistogram heartbeats;
+    final LongAdder errors;
+    final LongAdder games;
+
+    LoadStats() {
+        this.calls = new LatencyHistogram();
+        this.callbacks = new LatencyHistogram();
+        this.heartbeats = new LatencyHistogram();
+        this.errors = new LongAdder();
+        this.games = new LongAdder();
+    }
+
+    interface RemoteCall<T> {
+        T call() throws RemoteException;
+    }
+
+    // Runs one server call, records its round trip, null when it failed
+    <T> T timed(RemoteCall<T> call) {
+        return timed(calls, call);
+    }
+
+    <T> T timed(LatencyHistogram histogram, RemoteCall<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            histogram.record(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            errors.increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package loadtest;
+
+import common.GameClientInterface;
+import common.GameInterface;
+import transport.NioClient;
+import transport.NioServer;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Headless load generator. Fills rooms on a running server with scripted bots that play
+// full games back to back and prints throughput and latency percentiles as it goes:
+//   java -Dloadtest.bots=2000 -Dloadtest.roomSize=4 -Dloadtest.transport=nio loadtest.LoadTest
+// Other settings: loadtest.host, loadtest.port, loadtest.seconds, loadtest.reportSeconds.
+public class LoadTest {
+    private static final long HEARTBEAT_MILLIS = 500;
+
+    private final LoadStats stats;
+    // read by the heartbeat sweep while bots are still being added
+    private final Queue<Bot> bots;
+    private final List<GameInterface> connections;
+    private final boolean nio;
+    private final String host;
+    private final int port;
+
+    LoadTest(boolean nio, String host, int port) {
+        this.stats = new LoadStats();
+        this.bots = new ConcurrentLinkedQueue<>();
+        this.connections = new ArrayList<>();
+        this.nio = nio;
+        this.host = host;
+        this.port = port;
+    }
+
+    void start(int botCount, int roomSize) throws Exception {
+        GameInterface shared = nio ? null : (GameInterface) LocateRegistry.getRegistry(host, port).lookup("ImposterGame");
+        String run = Long.toString(System.currentTimeMillis() % 100000, 36);
+        int rooms = botCount / roomSize;
+        for (int r = 0; r < rooms; r++) {
+            String roomId = "load-" + run + "-" + r;
+            List<Bot> room = new ArrayList<>(roomSize);
+            for (int i = 0; i < roomSize; i++) {
+                Bot bot = new Bot("bot" + (r * roomSize + i), roomId, i == 0, stats);
+                GameInterface server;
+                GameClientInterface callback;
+                if (nio) {
+                    // events come back on the bot's own socket, so every bot has one
+                    server = NioClient.connect(host, port);
+                    connections.add(server);
+                    callback = bot;
+                } else {
+                    server = shared;
+                    callback = (GameClientInterface) UnicastRemoteObject.exportObject(bot, 0);
+                }
+                if (bot.register(server, callback)) {
+                    room.add(bot);
+                }
+            }
+            bots.addAll(room);
+            if (!room.isEmpty()) {
+                room.get(0).startGame();
+            }
+        }
+        System.out.println("Started " + bots.size() + " bots in " + rooms + " rooms");
+    }
+
+    void report(String label, double seconds, long games) {
+        System.out.printf("%s games=%d (%.1f/s) errors=%d calls=%s callbacks=%s heartbeats=%s%n",
+                label, games, games / seconds, stats.errors.sum(),
+                summary(stats.calls), summary(stats.callbacks), summary(stats.heartbeats));
+    }
+
+    private static String summary(LatencyHistogram histogram) {
+        return histogram.count() + " p50=" + micros(histogram.percentile(0.50)) + " p99=" + micros(histogram.percentile(0.99))
+                + " p999=" + micros(histogram.percentile(0.999));
+    }
+
+    private static String micros(long nanos) {
+        return nanos >= 10_000_000 ? (nanos / 1_000_000) + "ms" : (nanos / 1000) + "us";
+    }
+
+    void stop() {
+        for (Bot bot : bots) {
+            bot.leave();
+        }
+        for (GameInterface connection : connections) {
+            NioClient.close(connection);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean nio = "nio".equalsIgnoreCase(System.getProperty("loadtest.transport", "rmi"));
+        String host = System.getProperty("loadtest.host", "localhost");
+        int port = Integer.getInteger("loadtest.port", nio ? NioServer.DEFAULT_PORT : 1099);
+        int botCount = Integer.getInteger("loadtest.bots", 1000);
+        int roomSize = Integer.getInteger("loadtest.roomSize", 4);
+        int seconds = Integer.getInteger("loadtest.seconds", 60);
+        int reportSeconds = Integer.getInteger("loadtest.reportSeconds", 5);
+
+        LoadTest test = new LoadTest(nio, host, port);
+        ExecutorService heartbeats = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        // every bot keeps its lease like a real client, each beat on its own virtual thread
+        scheduler.scheduleAtFixedRate(() -> {
+            for (Bot bot : test.bots) {
+                heartbeats.execute(bot::heartbeat);
+            }
+        }, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        test.start(botCount, roomSize);
+
+        long start = System.nanoTime();
+        long lastGames = 0;
+        long lastReport = start;
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(reportSeconds));
+            long now = System.nanoTime();
+            long games = test.stats.games.sum();
+            test.report(String.format("[%3ds]", TimeUnit.NANOSECONDS.toSeconds(now - start)),
+                    (now - lastReport) / 1e9, games - lastGames);
+            lastGames = games;
+            lastReport = now;
+        }
+        scheduler.shutdownNow();
+        test.report("total", (System.nanoTime() - start) / 1e9, test.stats.games.sum());
+        test.stop();
+        heartbeats.shutdownNow();
+        System.exit(0);
+    }
+}
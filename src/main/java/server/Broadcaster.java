@@ -0,0 +1,294 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fan-out stage for client callbacks. Every client has its own bounded mailbox per scope,
+// a seat in a room or the lobby, drained independently, so a slow or stalled client only
+// ever delays itself. Events in one mailbox keep their order, and everything queued while
+// a batch is in flight goes out together in the next onEvents call.
+//
+// When a mailbox is full, state changes and voting deadlines are coalesced to the newest
+// of each kind. A client whose mailbox is still full, whose oldest event has waited longer
+// than the lag threshold, or whose callback fails is evicted and the mailbox owner is told.
+public class Broadcaster {
+    private final ExecutorService executor;
+    private final Map<Key, Channel> channels;
+    private final MailboxConfig config;
+
+    public Broadcaster(MailboxConfig config) {
+        // a blocked callback only parks a cheap virtual thread, not a platform thread
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("broadcast-", 0).factory());
+        this.channels = new ConcurrentHashMap<>();
+        this.config = config;
+    }
+
+    // Opens the client's mailbox in a scope, onEvict runs once if the client is dropped.
+    // A mailbox that is already open is kept as it is, false tells the caller so.
+    public boolean register(GameClientInterface client, String scope, Runnable onEvict) {
+        Key key = new Key(client, scope);
+        return channels.putIfAbsent(key, new Channel(key, onEvict)) == null;
+    }
+
+    public void send(GameClientInterface client, String scope, GameEvent event) {
+        send(client, scope, List.of(event));
+    }
+
+    // Events for a mailbox that isn't open, never was or was forgotten or evicted, are dropped
+    public void send(GameClientInterface client, String scope, List<GameEvent> events) {
+        if (client == null || events.isEmpty()) {
+            return;
+        }
+        Channel channel = channels.get(new Key(client, scope));
+        if (channel != null) {
+            channel.offer(events);
+        }
+    }
+
+    public void broadcast(Collection<GameClientInterface> clients, String scope, GameEvent event) {
+        List<GameEvent> events = List.of(event);
+        for (GameClientInterface client : clients) {
+            send(client, scope, events);
+        }
+    }
+
+    // Drops the mailbox of a client that left, anything still queued is discarded
+    public void forget(GameClientInterface client, String scope) {
+        if (client != null) {
+            Channel channel = channels.remove(new Key(client, scope));
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    public int queueDepth(GameClientInterface client, String scope) {
+        Channel channel = channels.get(new Key(client, scope));
+        return channel != null ? channel.depth() : 0;
+    }
+
+    public List<MailboxMetrics> metrics() {
+        List<MailboxMetrics> result = new ArrayList<>();
+        for (Channel channel : channels.values()) {
+            result.add(channel.metrics());
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private enum Policy {
+        // only the newest queued one of its kind matters
+        COALESCE,
+        // must be delivered
+        RELIABLE
+    }
+
+    private static Policy policyOf(GameEvent event) {
+        return switch (event) {
+            case GameEvent.VotingDeadline e -> Policy.COALESCE;
+            case GameEvent.StateChanged e -> Policy.COALESCE;
+            default -> Policy.RELIABLE;
+        };
+    }
+
+    private record Key(GameClientInterface client, String scope) {
+    }
+
+    private final class Channel {
+        private final Key key;
+        private final GameClientInterface client;
+        private final Runnable onEvict;
+        private final ReentrantLock lock;
+        private final Deque<Queued> pending;
+        private boolean draining;
+        private boolean closed;
+        // start of the onEvents call in flight, 0 when idle
+        private long inFlightSince;
+        private long delivered;
+        private long coalesced;
+
+        Channel(Key key, Runnable onEvict) {
+            this.key = key;
+            this.client = key.client();
+            this.onEvict = onEvict;
+            this.lock = new ReentrantLock();
+            this.pending = new ArrayDeque<>();
+        }
+
+        void offer(List<GameEvent> events) {
+            boolean startDrain = false;
+            boolean evict = false;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                for (GameEvent event : events) {
+                    if (pending.size() >= config.capacity() && !makeRoom(event)) {
+                        evict = true;
+                        break;
+                    }
+                    pending.addLast(new Queued(event, now));
+                }
+                if (!evict && lagMillis(now) > config.lagThresholdMillis()) {
+                    evict = true;
+                }
+                if (evict) {
+                    closed = true;
+                    pending.clear();
+                } else if (!draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (evict) {
+                evict();
+            } else if (startDrain) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // shut down while rooms were still flushing, nothing goes out any more
+                    close();
+                }
+            }
+        }
+
+        // Frees one slot by dropping an event a newer one of the same kind supersedes, the
+        // incoming one included, false when nothing queued is superseded
+        private boolean makeRoom(GameEvent incoming) {
+            if (policyOf(incoming) == Policy.COALESCE) {
+                for (Iterator<Queued> it = pending.iterator(); it.hasNext(); ) {
+                    if (it.next().event.getClass() == incoming.getClass()) {
+                        it.remove();
+                        coalesced++;
+                        return true;
+                    }
+                }
+            }
+            List<Class<?>> newest = new ArrayList<>(2);
+            for (Iterator<Queued> it = pending.descendingIterator(); it.hasNext(); ) {
+                GameEvent event = it.next().event;
+                if (policyOf(event) != Policy.COALESCE) {
+                    continue;
+                }
+                if (newest.contains(event.getClass())) {
+                    it.remove();
+                    coalesced++;
+                    return true;
+                }
+                newest.add(event.getClass());
+            }
+            return false;
+        }
+
+        private long lagMillis(long now) {
+            long oldest = inFlightSince;
+            Queued head = pending.peekFirst();
+            if (head != null && (oldest == 0 || head.queuedAt < oldest)) {
+                oldest = head.queuedAt;
+            }
+            return oldest == 0 ? 0 : now - oldest;
+        }
+
+        private void drain() {
+            while (true) {
+                List<GameEvent> batch;
+                lock.lock();
+                try {
+                    if (closed || pending.isEmpty()) {
+                        draining = false;
+                        inFlightSince = 0;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.size());
+                    for (Queued queued : pending) {
+                        batch.add(queued.event);
+                    }
+                    pending.clear();
+                    inFlightSince = System.currentTimeMillis();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    client.onEvents(batch);
+                } catch (Exception e) {
+                    // a client that can't take its events is gone, same as a slow one
+                    lock.lock();
+                    try {
+                        draining = false;
+                        inFlightSince = 0;
+                        closed = true;
+                        pending.clear();
+                    } finally {
+                        lock.unlock();
+                    }
+                    evict();
+                    return;
+                }
+                lock.lock();
+                try {
+                    delivered += batch.size();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void evict() {
+            if (channels.remove(key, this) && onEvict != null) {
+                onEvict.run();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int depth() {
+            lock.lock();
+            try {
+                return pending.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        MailboxMetrics metrics() {
+            lock.lock();
+            try {
+                return new MailboxMetrics(key.scope(), pending.size(), delivered, coalesced,
+                        lagMillis(System.currentTimeMillis()));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Queued(GameEvent event, long queuedAt) {
+    }
+}
@@ -0,0 +1,166 @@
+package server;
+
+import cluster.DirectoryServer;
+import common.DirectoryInterface;
+import common.GameEvent;
+import common.GameState;
+import common.NodeInfo;
+import stats.MatchResult;
+import transport.NioServer;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Headless game server that joins a cluster directory. Start several on one machine with
+// different ports and node ids, the directory spreads rooms over them:
+//   java -Dimposter.node=a -Dimposter.node.port=1101 -Dimposter.node.nioPort=7101 server.GameNode
+public class GameNode implements RoomListener {
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    private final NodeInfo node;
+    private final String directoryAddress;
+    private final ImposterGameImpl server;
+    // directory calls leave the room loops right away and go out one at a time, in order
+    private final ScheduledExecutorService reporter;
+    private DirectoryInterface directory;
+
+    GameNode(NodeInfo node, String directoryAddress, ImposterGameImpl server) {
+        this.node = node;
+        this.directoryAddress = directoryAddress;
+        this.server = server;
+        this.reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "node-directory");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        server.getRoomManager().addListener(this);
+        reporter.execute(this::join);
+        reporter.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        reporter.shutdownNow();
+        try {
+            if (directory != null) {
+                directory.leave(node.nodeId());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        server.shutdown();
+    }
+
+    // Joins, then reports every open room so a restarted directory learns them again
+    private void join() {
+        try {
+            directory = DirectoryServer.lookup(directoryAddress);
+            long version = directory.join(node);
+            for (String roomId : server.getRoomManager().getRoomIds()) {
+                directory.roomOpened(node.nodeId(), roomId);
+            }
+            System.out.println("Node " + node.nodeId() + " joined directory " + directoryAddress + " at version " + version);
+        } catch (Exception e) {
+            directory = null;
+            System.err.println("Directory " + directoryAddress + " unreachable: " + e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            if (directory == null || !directory.heartbeat(node.nodeId())) {
+                join();
+            }
+        } catch (Exception e) {
+            directory = null;
+            System.err.println("Lost directory " + directoryAddress + ": " + e.getMessage());
+        }
+    }
+
+    private void report(String roomId, boolean opened) {
+        reporter.execute(() -> {
+            if (directory == null) {
+                // sent with the next join
+                return;
+            }
+            try {
+                if (opened) {
+                    directory.roomOpened(node.nodeId(), roomId);
+                } else {
+                    directory.roomClosed(node.nodeId(), roomId);
+                }
+            } catch (Exception e) {
+                directory = null;
+                System.err.println("Lost directory " + directoryAddress + ": " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void roomCreated(String roomId) {
+        report(roomId, true);
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+        report(roomId, false);
+    }
+
+    @Override
+    public void rosterChanged(String roomId, GameEvent delta) {
+    }
+
+    @Override
+    public void stateChanged(String roomId, GameState state) {
+    }
+
+    @Override
+    public void matchFinished(String roomId, MatchResult result) {
+    }
+
+    @Override
+    public void commandFailed(String roomId, Throwable error) {
+        System.err.println("Command failed in " + roomId + ": " + error);
+    }
+
+    public static void main(String[] args) {
+        try {
+            int rmiPort = Integer.getInteger("imposter.node.port", 1099);
+            int nioPort = Integer.getInteger("imposter.node.nioPort", NioServer.DEFAULT_PORT);
+            // the room manager reads the node id for its room ids, so set it before creating it
+            String nodeId = System.getProperty("imposter.node");
+            if (nodeId == null) {
+                nodeId = "node-" + rmiPort;
+                System.setProperty("imposter.node", nodeId);
+            }
+            String host = System.getProperty("imposter.node.host", "localhost");
+            String directoryAddress = System.getProperty("imposter.directory", "localhost:" + DirectoryServer.DEFAULT_PORT);
+
+            ImposterGameImpl server = new ImposterGameImpl();
+            int recovered = server.getRoomManager().recoverRooms();
+            if (recovered > 0) {
+                System.out.println("Recovered " + recovered + " unfinished games from the journal");
+            }
+            Registry registry = LocateRegistry.createRegistry(rmiPort);
+            registry.rebind("ImposterGame", server);
+            NioServer nioServer = new NioServer(server, nioPort);
+            nioServer.start();
+
+            GameNode gameNode = new GameNode(new NodeInfo(nodeId, host, rmiPort, nioPort), directoryAddress, server);
+            gameNode.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                nioServer.stop();
+                gameNode.stop();
+            }));
+            System.out.println("Node " + nodeId + " ready on RMI port " + rmiPort + ", NIO port " + nioPort);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
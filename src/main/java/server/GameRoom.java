@@ -0,0 +1,933 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import common.Player;
+import common.PlayerView;
+import common.RosterSnapshot;
+import journal.EventJournal;
+import journal.JournalRecord;
+import journal.RecoveredGame;
+import stats.MatchResult;
+import words.WordEntry;
+import words.WordSampler;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// One independent match. Rooms are created and torn down by the RoomManager.
+// Every change to the room is a command on a lock-free inbox, drained by one owner at a time,
+// so player input and timers are applied in a single order without any monitor.
+public class GameRoom {
+    public static final int MAX_PLAYERS = 6;
+    public static final int MIN_PLAYERS = 3;
+    public static final int TURN_SECONDS = 30;
+    public static final int VOTING_SECONDS = 30;
+    // a player who hasn't sent a heartbeat for this long is treated as disconnected
+    public static final long LEASE_MILLIS = 2000;
+    // a recovered game waits this long for its players to come back before timers resume
+    public static final int RECOVERY_GRACE_SECONDS = 15;
+    // a room with nobody connected is torn down after this long, however it got empty
+    public static final int IDLE_SECONDS = 30;
+    // longer chat lines are cut, keeps every message well inside one journal record and frame
+    public static final int MAX_MESSAGE_LENGTH = 500;
+    private static final long LEASE_CHECK_MILLIS = 500;
+    // commands run per drain before yielding the thread to other rooms
+    private static final int DRAIN_BATCH = 64;
+
+    private final String roomId;
+    private final Queue<Runnable> inbox;
+    private final AtomicBoolean scheduled;
+    private final Executor loopExecutor;
+    // state below is only touched by the command currently being drained
+    private final SeatIndex seats;
+    // per-seat game state, indexed by seat id
+    private final boolean[] imposter;
+    private final List<GameEvent>[] outbox;
+    private final long[] leaseExpiry;
+    private int[] turnOrder;
+    private int currentPlayerIndex;
+    private int currentRound;
+    private int imposterSeat;
+    private String word;
+    private String hint;
+    private TimingWheel timers;
+    private Broadcaster broadcaster;
+    private RoomListener listener;
+    private long rosterVersion;
+    private TimingWheel.Timeout roundTimer;
+    private TimingWheel.Timeout turnTimer;
+    private TimingWheel.Timeout votingTimer;
+    private TimingWheel.Timeout leaseTimer;
+    private TimingWheel.Timeout idleTimer;
+    private long votingDeadline;
+    private boolean votingComplete;
+    // votes of the current phase already journaled and acknowledged, by seat
+    private final boolean[] voteLogged;
+    // replaced at the start of every voting phase, votes are counted on the caller's thread
+    private volatile VoteTally tally;
+    // read by spectate and by the manager off the loop
+    private volatile boolean closed;
+    private boolean rosterDirty;
+    // published for readers on other threads
+    private volatile GameState currentState;
+    private volatile List<Player> publishedPlayers;
+    // what clients see, swapped as a whole together with publishedPlayers
+    private volatile RosterSnapshot publishedRoster;
+    // draws without repeats until the room has seen every word
+    private final WordSampler words;
+    private final EventJournal journal;
+    // watchers are served off the loop, the loop only appends public events
+    private final SpectatorRelay spectators;
+
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    GameRoom(String roomId, Executor loopExecutor, TimingWheel timers, Broadcaster broadcaster, WordSampler words,
+             EventJournal journal, Executor spectatorExecutor, RoomListener listener) {
+        this.roomId = roomId;
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean();
+        this.loopExecutor = loopExecutor;
+        this.seats = new SeatIndex(MAX_PLAYERS);
+        this.imposter = new boolean[MAX_PLAYERS];
+        this.outbox = new List[MAX_PLAYERS];
+        this.leaseExpiry = new long[MAX_PLAYERS];
+        this.voteLogged = new boolean[MAX_PLAYERS];
+        this.turnOrder = new int[0];
+        this.imposterSeat = SeatIndex.NO_SEAT;
+        this.currentState = GameState.WAITING_FOR_PLAYERS;
+        this.currentRound = 0;
+        this.timers = timers;
+        this.broadcaster = broadcaster;
+        this.listener = listener;
+        this.words = words;
+        this.journal = journal;
+        this.spectators = new SpectatorRelay(spectatorExecutor);
+        this.publishedPlayers = List.of();
+        this.publishedRoster = RosterSnapshot.EMPTY;
+        // nobody has joined yet, a room that stays that way must not live forever
+        this.idleTimer = timers.schedule(() -> execute(this::expireIfIdle), IDLE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    // ---- commands, safe to call from any thread ----
+
+    public CompletableFuture<Boolean> registerPlayer(String playerName, GameClientInterface client) {
+        return call(() -> doRegisterPlayer(playerName, client, false));
+    }
+
+    // Seats a player picked by the matchmaker, RoomAssigned leaves ahead of the room's own events
+    public CompletableFuture<Boolean> assignPlayer(String playerName, GameClientInterface client) {
+        return call(() -> doRegisterPlayer(playerName, client, true));
+    }
+
+    // Completes with true when that was the last player out. The room has then already closed on
+    // its loop, so a registration queued behind it is turned away, and the manager only drops it
+    public CompletableFuture<Boolean> removePlayer(String playerName) {
+        return call(() -> doRemovePlayer(playerName));
+    }
+
+    // Renews the player's lease, completes with false when the seat is gone and the client must register again
+    public CompletableFuture<Boolean> heartbeat(String playerName) {
+        return call(() -> doHeartbeat(playerName));
+    }
+
+    public void startGame() {
+        execute(this::doStartGame);
+    }
+
+    public void sendMessage(String playerName, String message) {
+        if (message == null) {
+            return;
+        }
+        String capped = cap(message);
+        execute(() -> doSendMessage(playerName, capped));
+    }
+
+    // The vote itself is counted lock-free right here, only the notifications go through the loop
+    public void submitVote(String playerName, String votedPlayer) {
+        VoteTally current = tally;
+        if (current == null) {
+            return;
+        }
+        int seat = current.seatOf(playerName);
+        int outcome = current.vote(seat, current.seatOf(votedPlayer));
+        if (outcome != VoteTally.REJECTED) {
+            int target = current.seatOf(votedPlayer);
+            execute(() -> voteRecorded(current, seat, target, outcome == VoteTally.COMPLETED));
+        }
+    }
+
+    public void replayGame() {
+        execute(this::doReplayGame);
+    }
+
+    // Resumes a match recovered from the journal
+    void restore(RecoveredGame game) {
+        execute(() -> doRestore(game));
+    }
+
+    // Stops all timers, the room must not be used afterwards
+    void close() {
+        execute(this::doClose);
+    }
+
+    // Cached, immutable and free of secrets, the same list is handed to every caller
+    public List<PlayerView> getPlayers() {
+        return publishedRoster.players();
+    }
+
+    public RosterSnapshot getRoster() {
+        return publishedRoster;
+    }
+
+    // Full detail including the imposter, only for the in-process admin view
+    List<Player> getPlayerDetails() {
+        return publishedPlayers;
+    }
+
+    // Read-only watcher, starts with a snapshot of the room and then follows its public events
+    public boolean spectate(GameClientInterface client) {
+        return client != null && !closed && spectators.add(client);
+    }
+
+    public void stopSpectating(GameClientInterface client) {
+        spectators.remove(client);
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    public int getPlayerCount() {
+        return publishedPlayers.size();
+    }
+
+    public GameState getGameState() {
+        return currentState;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // ---- event loop ----
+
+    private void execute(Runnable command) {
+        inbox.add(command);
+        if (scheduled.compareAndSet(false, true)) {
+            loopExecutor.execute(this::drain);
+        }
+    }
+
+    // The future always completes, a command that throws fails it instead of leaving the caller waiting
+    private <T> CompletableFuture<T> call(Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            execute(() -> {
+                try {
+                    result.complete(command.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                    throw e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the loop is already shut down
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void drain() {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Runnable command = inbox.poll();
+            if (command == null) {
+                break;
+            }
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                listener.commandFailed(roomId, e);
+            }
+            flush();
+        }
+        scheduled.set(false);
+        // reschedule if more arrived, or if the batch limit was hit
+        if (!inbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            loopExecutor.execute(this::drain);
+        }
+    }
+
+    // Each command's events leave as one batch per client, remote I/O happens on the broadcaster
+    private void flush() {
+        publish();
+        for (int seat = 0; seat < outbox.length; seat++) {
+            List<GameEvent> events = outbox[seat];
+            if (events != null) {
+                broadcaster.send(seats.client(seat), mailbox(seat), events);
+                outbox[seat] = null;
+            }
+        }
+        spectators.signal();
+    }
+
+    // ---- transitions, only run on the loop ----
+
+    private boolean doRegisterPlayer(String playerName, GameClientInterface client, boolean assigned) {
+        if (closed) {
+            return false;
+        }
+        if (currentState != GameState.WAITING_FOR_PLAYERS) {
+            return rejoin(playerName, client);
+        }
+
+        // full room or name already exist
+        int seat = seats.assign(playerName, client);
+        if (seat == SeatIndex.NO_SEAT) {
+            return false;
+        }
+        clearSeat(seat);
+        attach(seat, client);
+        if (assigned) {
+            send(seat, new GameEvent.RoomAssigned(roomId));
+        }
+
+        // existing players get the delta, the newcomer gets the whole roster once
+        rosterChanged(new GameEvent.PlayerJoined(++rosterVersion, playerName), seat);
+        send(seat, rosterReset());
+        broadcastGameState();
+        return true;
+    }
+
+    // A player whose client died mid game gets the same seat back by registering under the same name
+    private boolean rejoin(String playerName, GameClientInterface client) {
+        int seat = seats.seatOf(playerName);
+        if (seat == SeatIndex.NO_SEAT || seats.isAttached(seat)) {
+            return false;
+        }
+        attach(seat, client);
+        // connected is part of the published roster
+        rosterDirty = true;
+        send(seat, rosterReset());
+        send(seat, new GameEvent.StateChanged(currentState));
+        if (word != null) {
+            send(seat, new GameEvent.WordAssigned(word, imposter[seat], hint));
+        }
+        if (currentState == GameState.VOTING && !votingComplete) {
+            long remaining = Math.max(0, votingDeadline - System.currentTimeMillis());
+            send(seat, new GameEvent.VotingDeadline(votingDeadline, (int) (remaining / 1000)));
+            // the missed vote was already counted as an abstention
+            send(seat, new GameEvent.VoteRecorded());
+        }
+        return true;
+    }
+
+    private void attach(int seat, GameClientInterface client) {
+        if (idleTimer != null) {
+            idleTimer.cancel();
+            idleTimer = null;
+        }
+        seats.attach(seat, client);
+        leaseExpiry[seat] = System.currentTimeMillis() + LEASE_MILLIS;
+        broadcaster.register(client, mailbox(seat), () -> execute(() -> evicted(seat, client)));
+        if (leaseTimer == null) {
+            scheduleLeaseCheck();
+        }
+    }
+
+    private boolean doHeartbeat(String playerName) {
+        int seat = seats.seatOf(playerName);
+        if (closed || seat == SeatIndex.NO_SEAT || !seats.isAttached(seat)) {
+            return false;
+        }
+        leaseExpiry[seat] = System.currentTimeMillis() + LEASE_MILLIS;
+        return true;
+    }
+
+    private void scheduleLeaseCheck() {
+        leaseTimer = timers.schedule(() -> execute(this::checkLeases), LEASE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs only while someone is connected, the next attach starts it again
+    private void checkLeases() {
+        leaseTimer = null;
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = seats.size() - 1; i >= 0; i--) {
+            int seat = seats.seatAt(i);
+            if (seats.isAttached(seat) && leaseExpiry[seat] < now) {
+                disconnect(seat);
+            }
+        }
+        if (seats.attachedCount() > 0) {
+            scheduleLeaseCheck();
+        }
+    }
+
+    private boolean doRemovePlayer(String playerName) {
+        int seat = seats.seatOf(playerName);
+        if (seat != SeatIndex.NO_SEAT && seats.isAttached(seat)) {
+            disconnect(seat);
+        }
+        if (closed || seats.attachedCount() > 0) {
+            return false;
+        }
+        doClose();
+        return true;
+    }
+
+    // The broadcaster gave up on this client, treat it like a player leaving
+    private void evicted(int seat, GameClientInterface client) {
+        if (seats.client(seat) == client) {
+            disconnect(seat);
+        }
+    }
+
+    // Stops delivering to a seat. Before the game the seat is freed, during the game it is kept
+    // so the player can come back, while their turns are skipped and their vote is an abstention.
+    private void disconnect(int seat) {
+        outbox[seat] = null;
+        broadcaster.forget(seats.client(seat), mailbox(seat));
+        if (currentState == GameState.WAITING_FOR_PLAYERS) {
+            String playerName = seats.name(seat);
+            seats.release(seat);
+            rosterChanged(new GameEvent.PlayerLeft(++rosterVersion, playerName), SeatIndex.NO_SEAT);
+            armIdleTimer();
+            return;
+        }
+        seats.detach(seat);
+        rosterDirty = true;
+        armIdleTimer();
+        if (isRound() && currentPlayerIndex < turnOrder.length && turnOrder[currentPlayerIndex] == seat) {
+            if (turnTimer != null) {
+                turnTimer.cancel();
+            }
+            skipCurrentTurn();
+        } else if (currentState == GameState.VOTING && !votingComplete) {
+            abstain(seat);
+        }
+    }
+
+    // Leases, evictions and leaving all end here, the last one out starts the idle countdown
+    private void armIdleTimer() {
+        if (!closed && idleTimer == null && seats.attachedCount() == 0) {
+            idleTimer = timers.schedule(() -> execute(this::expireIfIdle), IDLE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Closes on the loop before telling the manager, so a registration queued behind this finds
+    // the room closed and goes to a fresh one instead of joining a room about to disappear
+    private void expireIfIdle() {
+        idleTimer = null;
+        if (closed || seats.attachedCount() > 0) {
+            return;
+        }
+        doClose();
+        listener.roomIdle(roomId);
+    }
+
+    private void abstain(int seat) {
+        int outcome = tally.vote(seat, SeatIndex.NO_SEAT);
+        if (outcome == VoteTally.REJECTED) {
+            return;
+        }
+        voteLogged[seat] = true;
+        journal.append(new JournalRecord.Vote(roomId, seats.name(seat), ""));
+        if (outcome == VoteTally.COMPLETED) {
+            finishVoting();
+        }
+    }
+
+    private void doStartGame() {
+        if (closed || seats.size() < MIN_PLAYERS || currentState != GameState.WAITING_FOR_PLAYERS) {
+            return;
+        }
+        currentState = GameState.STARTING;
+        broadcastGameState();
+
+        // turn order is fixed for the whole match
+        turnOrder = new int[seats.size()];
+        for (int i = 0; i < turnOrder.length; i++) {
+            turnOrder[i] = seats.seatAt(i);
+        }
+
+        // Select imposter
+        Random rand = new Random();
+        imposterSeat = turnOrder[rand.nextInt(turnOrder.length)];
+
+        // Distribute words
+        WordEntry entry = words.next();
+        word = entry.word();
+        hint = entry.hints().get(rand.nextInt(entry.hints().size()));
+
+        for (int seat : turnOrder) {
+            imposter[seat] = seat == imposterSeat;
+            send(seat, new GameEvent.WordAssigned(word, imposter[seat], hint));
+        }
+        rosterDirty = true;
+        journal.append(new JournalRecord.Started(roomId, turnOrderNames(), indexInTurnOrder(imposterSeat), word, hint));
+
+        currentState = GameState.WORD_DISTRIBUTION;
+        broadcastGameState();
+
+        // Start first round after a short delay
+        roundTimer = timers.schedule(() -> execute(this::startNextRound), 3, TimeUnit.SECONDS);
+    }
+
+    private void startNextRound() {
+        if (closed) {
+            return;
+        }
+        currentRound++;
+        if (currentRound > 3) {
+            startVoting();
+            return;
+        }
+
+        switch (currentRound) {
+            case 1:
+                currentState = GameState.ROUND_1;
+                break;
+            case 2:
+                currentState = GameState.ROUND_2;
+                break;
+            case 3:
+                currentState = GameState.ROUND_3;
+                break;
+        }
+        journal.append(new JournalRecord.Round(roomId, currentRound));
+        broadcastGameState();
+        currentPlayerIndex = 0;
+        startPlayerTurn();
+    }
+
+    private void startPlayerTurn() {
+        if (closed) {
+            return;
+        }
+        if (currentPlayerIndex >= turnOrder.length) {
+            // End of round
+            roundTimer = timers.schedule(() -> execute(this::startNextRound), 2, TimeUnit.SECONDS);
+            return;
+        }
+        int seat = turnOrder[currentPlayerIndex];
+        if (!seats.isAttached(seat)) {
+            // nobody there to answer, don't wait for the timeout
+            skipCurrentTurn();
+            return;
+        }
+        long deadline = System.currentTimeMillis() + TURN_SECONDS * 1000L;
+        send(seat, new GameEvent.YourTurn(true, deadline));
+        // Set timer for 30 seconds
+        if (turnTimer != null) {
+            turnTimer.cancel();
+        }
+
+        int turnIndex = currentPlayerIndex;
+        int round = currentRound;
+        turnTimer = timers.schedule(() -> execute(() -> skipTurn(round, turnIndex)), TURN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void skipTurn(int round, int turnIndex) {
+        // the player may have answered while the timeout was queued
+        if (closed || currentRound != round || currentPlayerIndex != turnIndex) {
+            return;
+        }
+        // Auto skip if player didn't respond
+        send(turnOrder[turnIndex], new GameEvent.YourTurn(false, 0L));
+        skipCurrentTurn();
+    }
+
+    private void skipCurrentTurn() {
+        journal.append(new JournalRecord.TurnSkipped(roomId));
+        currentPlayerIndex++;
+        startPlayerTurn();
+    }
+
+    private void doSendMessage(String playerName, String message) {
+        if (!isRound() || currentPlayerIndex >= turnOrder.length) {
+            return;
+        }
+        // Verify it's the correct player's turn
+        int seat = seats.seatOf(playerName);
+        if (seat != SeatIndex.NO_SEAT && seat == turnOrder[currentPlayerIndex]) {
+
+            // cancel the turn timer
+            if (turnTimer != null) {
+                turnTimer.cancel();
+            }
+
+            // Broadcast message to all players
+            journal.append(new JournalRecord.Chat(roomId, playerName, message));
+            broadcast(new GameEvent.Chat(playerName, message));
+
+            // move to next player
+            send(seat, new GameEvent.YourTurn(false, 0L));
+            currentPlayerIndex++;
+            startPlayerTurn();
+        }
+    }
+
+    private static String cap(String message) {
+        if (message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        int end = MAX_MESSAGE_LENGTH;
+        // don't split a surrogate pair
+        if (Character.isHighSurrogate(message.charAt(end - 1))) {
+            end--;
+        }
+        return message.substring(0, end);
+    }
+
+    private boolean isRound() {
+        return currentState == GameState.ROUND_1 || currentState == GameState.ROUND_2 || currentState == GameState.ROUND_3;
+    }
+
+    private void startVoting() {
+        journal.append(new JournalRecord.Voting(roomId));
+        currentState = GameState.VOTING;
+        broadcastGameState();
+        votingComplete = false;
+
+        // Fresh tally, the name to seat map is frozen for the phase so votes never touch the loop
+        tally = new VoteTally(seats.snapshot(), MAX_PLAYERS, turnOrder.length);
+        Arrays.fill(voteLogged, false);
+
+        // Start voting timer for 30 seconds
+        startVotingTimer(VOTING_SECONDS);
+
+        // disconnected players abstain, which may already complete the phase
+        for (int seat : turnOrder) {
+            if (!seats.isAttached(seat) && !votingComplete) {
+                abstain(seat);
+            }
+        }
+    }
+
+    private void startVotingTimer(int seconds) {
+        if (votingTimer != null) {
+            votingTimer.cancel();
+        }
+        // one deadline per phase instead of a tick per second, clients count down locally
+        votingDeadline = System.currentTimeMillis() + seconds * 1000L;
+        broadcast(new GameEvent.VotingDeadline(votingDeadline, seconds));
+        votingTimer = timers.schedule(() -> execute(this::votingExpired), seconds, TimeUnit.SECONDS);
+    }
+
+    private void votingExpired() {
+        if (closed || votingComplete || currentState != GameState.VOTING) {
+            return;
+        }
+        finishVoting();
+    }
+
+    private void finishVoting() {
+        votingComplete = true;
+        if (votingTimer != null) {
+            votingTimer.cancel();
+        }
+        tally.close();
+        // votes admitted just before the close still have their command queued, they count in
+        // the result, so they are journaled and acknowledged ahead of it
+        for (int seat : turnOrder) {
+            if (tally.hasVoted(seat) && !voteLogged[seat]) {
+                logVote(seat, tally.targetOf(seat));
+            }
+        }
+        calculateResults();
+    }
+
+    // Every vote the tally admitted gets here once, also after the phase it belongs to has ended
+    private void voteRecorded(VoteTally votes, int seat, int target, boolean lastVote) {
+        // a vote from an earlier match
+        if (closed || votes != tally) {
+            return;
+        }
+        if (!voteLogged[seat]) {
+            logVote(seat, target);
+        }
+
+        // Everyone has voted
+        if (lastVote && !votingComplete) {
+            finishVoting();
+        }
+    }
+
+    private void logVote(int seat, int target) {
+        voteLogged[seat] = true;
+        journal.append(new JournalRecord.Vote(roomId, seats.name(seat), target != SeatIndex.NO_SEAT ? seats.name(target) : ""));
+        rosterChanged(new GameEvent.PlayerUpdated(++rosterVersion, seats.name(seat), true), SeatIndex.NO_SEAT);
+
+        // Notify client that vote was recorded
+        send(seat, new GameEvent.VoteRecorded());
+    }
+
+    private void calculateResults() {
+        journal.append(new JournalRecord.Result(roomId));
+        currentState = GameState.RESULT;
+
+        // The tally already tracks the leader, a tie means no one is eliminated
+        int votedSeat = tally.leader();
+        boolean tie = tally.isTie();
+        boolean imposterCaught = !tie && votedSeat == imposterSeat;
+
+        // Send results to each player
+        String imposterName = seats.name(imposterSeat);
+        String resultMessage;
+        if (tie) {
+            resultMessage = "It's a tie! No one was eliminated.\nThe imposter was: " + imposterName;
+        } else {
+            resultMessage = "Most voted: " + (votedSeat != SeatIndex.NO_SEAT ? seats.name(votedSeat) : "None") +
+                    "\nThe imposter was: " + imposterName;
+        }
+        for (int seat : turnOrder) {
+            boolean won = imposterCaught ? !imposter[seat] : imposter[seat];
+            send(seat, new GameEvent.VotingResult(imposterName, won, resultMessage));
+        }
+        // spectators see the result from the crew's side
+        spectators.append(new GameEvent.VotingResult(imposterName, imposterCaught, resultMessage));
+        listener.matchFinished(roomId, new MatchResult(System.currentTimeMillis(), turnOrderNames(), imposterName,
+                votedSeat != SeatIndex.NO_SEAT ? seats.name(votedSeat) : null, tie, imposterCaught));
+        currentState = GameState.GAME_OVER;
+        // the counts are revealed now, also when the deadline ended the phase without a last vote
+        rosterDirty = true;
+        broadcastGameState();
+    }
+
+    private void doReplayGame() {
+        if (closed || currentState != GameState.GAME_OVER) {
+            return;
+        }
+        // Reset game state
+        currentRound = 0;
+        currentState = GameState.WAITING_FOR_PLAYERS;
+        votingComplete = false;
+        turnOrder = new int[0];
+        imposterSeat = SeatIndex.NO_SEAT;
+        tally = null;
+        word = null;
+        hint = null;
+
+        // Drop players that left during the match
+        for (int i = seats.size() - 1; i >= 0; i--) {
+            int seat = seats.seatAt(i);
+            if (!seats.isAttached(seat)) {
+                seats.release(seat);
+            }
+        }
+        // Reset players
+        for (int i = 0; i < seats.size(); i++) {
+            clearSeat(seats.seatAt(i));
+        }
+        rosterVersion++;
+        GameEvent reset = rosterReset();
+        broadcast(reset);
+        listener.rosterChanged(roomId, reset);
+        rosterDirty = true;
+        broadcastGameState();
+    }
+
+    // Puts a match from the journal back, every seat starts detached until its player registers again
+    private void doRestore(RecoveredGame game) {
+        if (closed || currentState != GameState.WAITING_FOR_PLAYERS || seats.size() > 0) {
+            return;
+        }
+        turnOrder = new int[game.players().size()];
+        for (int i = 0; i < turnOrder.length; i++) {
+            turnOrder[i] = seats.assign(game.players().get(i), null);
+        }
+        imposterSeat = turnOrder[game.imposter()];
+        for (int seat : turnOrder) {
+            imposter[seat] = seat == imposterSeat;
+        }
+        word = game.word();
+        hint = game.hint();
+        currentRound = game.round();
+        currentPlayerIndex = game.turnIndex();
+        currentState = game.state();
+        if (currentState == GameState.VOTING) {
+            votingComplete = false;
+            tally = new VoteTally(seats.snapshot(), MAX_PLAYERS, turnOrder.length);
+            Arrays.fill(voteLogged, false);
+            for (Map.Entry<String, String> vote : game.votes().entrySet()) {
+                int voter = seats.seatOf(vote.getKey());
+                if (tally.vote(voter, vote.getValue().isEmpty() ? SeatIndex.NO_SEAT : seats.seatOf(vote.getValue())) != VoteTally.REJECTED) {
+                    // already in the journal
+                    voteLogged[voter] = true;
+                }
+            }
+        }
+        rosterVersion++;
+        rosterDirty = true;
+        broadcastGameState();
+        roundTimer = timers.schedule(() -> execute(this::resumeRestored), RECOVERY_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void resumeRestored() {
+        if (closed) {
+            return;
+        }
+        switch (currentState) {
+            case STARTING, WORD_DISTRIBUTION -> startNextRound();
+            case ROUND_1, ROUND_2, ROUND_3 -> startPlayerTurn();
+            case VOTING -> {
+                startVotingTimer(VOTING_SECONDS);
+                for (int seat : turnOrder) {
+                    if (!seats.isAttached(seat) && !tally.hasVoted(seat) && !votingComplete) {
+                        abstain(seat);
+                    }
+                }
+                if (!votingComplete && tally.votesCast() == turnOrder.length) {
+                    finishVoting();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private List<String> turnOrderNames() {
+        List<String> names = new ArrayList<>(turnOrder.length);
+        for (int seat : turnOrder) {
+            names.add(seats.name(seat));
+        }
+        return names;
+    }
+
+    private int indexInTurnOrder(int seat) {
+        for (int i = 0; i < turnOrder.length; i++) {
+            if (turnOrder[i] == seat) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void doClose() {
+        if (closed) {
+            return;
+        }
+        journal.append(new JournalRecord.Ended(roomId));
+        closed = true;
+        spectators.close();
+        if (roundTimer != null) {
+            roundTimer.cancel();
+        }
+        if (turnTimer != null) {
+            turnTimer.cancel();
+        }
+        if (votingTimer != null) {
+            votingTimer.cancel();
+        }
+        if (leaseTimer != null) {
+            leaseTimer.cancel();
+        }
+        if (idleTimer != null) {
+            idleTimer.cancel();
+            idleTimer = null;
+        }
+        for (int i = 0; i < seats.size(); i++) {
+            int seat = seats.seatAt(i);
+            broadcaster.forget(seats.client(seat), mailbox(seat));
+            seats.detach(seat);
+            outbox[seat] = null;
+        }
+    }
+
+    // Broadcaster scope of a player's mailbox in a room
+    static String mailboxOf(String roomId, String playerName) {
+        return roomId + "/" + playerName;
+    }
+
+    private String mailbox(int seat) {
+        return mailboxOf(roomId, seats.name(seat));
+    }
+
+    private void clearSeat(int seat) {
+        imposter[seat] = false;
+    }
+
+    private void publish() {
+        if (rosterDirty) {
+            List<Player> players = new ArrayList<>(seats.size());
+            List<PlayerView> views = new ArrayList<>(seats.size());
+            // counts stay hidden while votes are still coming in
+            boolean revealVotes = currentState == GameState.RESULT || currentState == GameState.GAME_OVER;
+            for (int i = 0; i < seats.size(); i++) {
+                int seat = seats.seatAt(i);
+                int votes = tally != null ? tally.votesFor(seat) : 0;
+                Player p = new Player(seats.name(seat));
+                p.setImposter(imposter[seat]);
+                p.setWord(word);
+                p.setHint(hint);
+                p.setVotes(votes);
+                players.add(p);
+                views.add(new PlayerView(seats.name(seat), seats.isAttached(seat),
+                        tally != null && tally.hasVoted(seat), revealVotes ? votes : 0));
+            }
+            publishedPlayers = List.copyOf(players);
+            publishedRoster = new RosterSnapshot(publishedRoster.version() + 1, rosterVersion, views);
+            rosterDirty = false;
+        }
+    }
+
+    private void broadcastGameState() {
+        broadcast(new GameEvent.StateChanged(currentState));
+        publish();
+        listener.stateChanged(roomId, currentState);
+    }
+
+    // skipSeat is left out of the delta, used for a newcomer who gets a full reset instead
+    private void rosterChanged(GameEvent delta, int skipSeat) {
+        rosterDirty = true;
+        for (int i = 0; i < seats.size(); i++) {
+            int seat = seats.seatAt(i);
+            if (seat != skipSeat) {
+                send(seat, delta);
+            }
+        }
+        spectators.append(delta);
+        listener.rosterChanged(roomId, delta);
+    }
+
+    private GameEvent rosterReset() {
+        List<String> names = new ArrayList<>(seats.size());
+        for (int i = 0; i < seats.size(); i++) {
+            names.add(seats.name(seats.seatAt(i)));
+        }
+        return new GameEvent.RosterReset(rosterVersion, names);
+    }
+
+    // Events are buffered per seat during a command and leave as one batch when it ends
+    private void send(int seat, GameEvent event) {
+        if (!seats.isAttached(seat)) {
+            return;
+        }
+        if (outbox[seat] == null) {
+            outbox[seat] = new ArrayList<>();
+        }
+        outbox[seat].add(event);
+    }
+
+    // Public events, spectators get them too
+    private void broadcast(GameEvent event) {
+        for (int i = 0; i < seats.size(); i++) {
+            send(seats.seatAt(i), event);
+        }
+        spectators.append(event);
+    }
+}
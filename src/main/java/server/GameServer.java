@@ -13,17 +13,23 @@ public class GameServer extends ImposterGameImpl {
     }
 
     @Override
-    public synchronized boolean registerPlayer(String playerName, GameClientInterface client) throws RemoteException {
-        boolean result = super.registerPlayer(playerName, client);
+    public boolean registerPlayer(String roomId, String playerName, GameClientInterface client) throws RemoteException {
+        boolean result = super.registerPlayer(roomId, playerName, client);
         if (result) {
-            ui.log("Player registered: " + playerName);
+            ui.log("Player registered: " + playerName + " in " + roomId);
         }
         return result;
     }
 
     @Override
-    public synchronized void startGame() throws RemoteException {
-        super.startGame();
-        ui.log("Game started with " + getPlayers().size() + " players");
+    public void leaveRoom(String roomId, String playerName) throws RemoteException {
+        super.leaveRoom(roomId, playerName);
+        ui.log("Player left: " + playerName + " from " + roomId);
+    }
+
+    @Override
+    public void startGame(String roomId) throws RemoteException {
+        super.startGame(roomId);
+        ui.log("Game started in " + roomId + " with " + getPlayers(roomId).size() + " players");
     }
 }
@@ -1,7 +1,11 @@
 package server;
 
+import common.GameEvent;
 import common.GameState;
 import common.Player;
+import stats.MatchResult;
+import transport.NioServer;
+import words.WordSource;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -11,18 +15,24 @@ import java.awt.event.WindowEvent;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
-import java.util.List;
 
-public class GameServerUI extends JFrame {
+public class GameServerUI extends JFrame implements RoomListener {
     private JTextArea logArea;
     private JButton startButton;
     private JButton stopButton;
+    private JButton reloadWordsButton;
     private JLabel statusLabel;
     private JLabel playerCountLabel;
+    private JLabel roomCountLabel;
+    private JComboBox<String> roomSelector;
+    private DefaultComboBoxModel<String> roomSelectorModel;
     private JList<String> playerList;
     private DefaultListModel<String> playerListModel;
+    private DefaultListModel<String> mailboxListModel;
+    private Timer mailboxTimer;
     private GameServer server;
     private Registry registry;
+    private NioServer nioServer;
 
     public GameServerUI() {
         initComponents();
@@ -47,21 +57,39 @@ public class GameServerUI extends JFrame {
         gbc.anchor = GridBagConstraints.WEST;
         topPanel.add(statusLabel, gbc);
 
-        playerCountLabel = new JLabel("Players: 0/6");
-        playerCountLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        roomCountLabel = new JLabel("Rooms: 0");
+        roomCountLabel.setFont(new Font("Arial", Font.PLAIN, 12));
         gbc.gridy = 1;
         gbc.gridwidth = 2;
+        topPanel.add(roomCountLabel, gbc);
+
+        roomSelectorModel = new DefaultComboBoxModel<>();
+        roomSelector = new JComboBox<>(roomSelectorModel);
+        roomSelector.setPrototypeDisplayValue("room-0000000000");
+        roomSelector.addActionListener(e -> reloadSelectedRoom());
+        gbc.gridy = 2;
+        topPanel.add(roomSelector, gbc);
+
+        playerCountLabel = new JLabel("Players: 0/" + GameRoom.MAX_PLAYERS);
+        playerCountLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        gbc.gridy = 3;
         topPanel.add(playerCountLabel, gbc);
 
         startButton = new JButton("Start Game");
         startButton.setEnabled(false);
         startButton.addActionListener(e -> startGame());
-        gbc.gridy = 2;
+        gbc.gridy = 4;
         gbc.gridx = 0;
         gbc.gridwidth = 1;
         gbc.insets = new Insets(10, 0, 0, 5);
         topPanel.add(startButton, gbc);
 
+        reloadWordsButton = new JButton("Reload Words");
+        reloadWordsButton.addActionListener(e -> reloadWords());
+        gbc.gridx = 1;
+        gbc.insets = new Insets(10, 5, 0, 0);
+        topPanel.add(reloadWordsButton, gbc);
+
         stopButton = new JButton("Stop Server");
         stopButton.setEnabled(true);
         stopButton.addActionListener(e -> stopServer());
@@ -86,6 +114,20 @@ public class GameServerUI extends JFrame {
         playerScroll.setPreferredSize(new Dimension(200, 300));
         playerPanel.add(playerScroll, BorderLayout.CENTER);
 
+        // Outbound queue depth per client, read in-process from the broadcaster
+        JPanel mailboxPanel = new JPanel(new BorderLayout());
+        mailboxPanel.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createEtchedBorder(), "Client Queues",
+                TitledBorder.LEFT, TitledBorder.TOP));
+        mailboxListModel = new DefaultListModel<>();
+        JList<String> mailboxList = new JList<>(mailboxListModel);
+        mailboxList.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        JScrollPane mailboxScroll = new JScrollPane(mailboxList);
+        mailboxScroll.setPreferredSize(new Dimension(200, 120));
+        mailboxPanel.add(mailboxScroll, BorderLayout.CENTER);
+        playerPanel.add(mailboxPanel, BorderLayout.SOUTH);
+        mailboxTimer = new Timer(1000, e -> updateMailboxMetrics());
+
         // Log Panel
         JPanel logPanel = new JPanel(new BorderLayout());
         logPanel.setBorder(BorderFactory.createTitledBorder(
@@ -106,7 +148,7 @@ public class GameServerUI extends JFrame {
         // Bottom Panel - Info
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         bottomPanel.setBorder(BorderFactory.createEtchedBorder());
-        JLabel infoLabel = new JLabel("Server running on port 1099");
+        JLabel infoLabel = new JLabel("Server running on port 1099 (RMI) and " + NioServer.DEFAULT_PORT + " (NIO)");
         bottomPanel.add(infoLabel);
         add(bottomPanel, BorderLayout.SOUTH);
 
@@ -125,18 +167,28 @@ public class GameServerUI extends JFrame {
         try {
             registry = LocateRegistry.createRegistry(1099);
             server = new GameServer(this);
+            server.getRoomManager().addListener(this);
+            int recovered = server.getRoomManager().recoverRooms();
+            if (recovered > 0) {
+                log("Recovered " + recovered + " unfinished games from the journal");
+            }
             registry.bind("ImposterGame", server);
+            // same game over the socket transport, for clients that can't take RMI callbacks
+            nioServer = new NioServer(server, NioServer.DEFAULT_PORT);
+            nioServer.start();
 
             statusLabel.setText("Status: Running");
             statusLabel.setForeground(new Color(0, 150, 0));
             startButton.setEnabled(false); // Will be enabled when enough players join
             stopButton.setEnabled(true);
 
+            mailboxTimer.start();
+
+            WordSource words = server.getRoomManager().getWordSource();
+            log("Word bank: " + words.current().size() + " words from " + words.current().getSource());
             log("RMI Registry started on port 1099");
+            log("NIO transport listening on port " + nioServer.getPort());
             log("server is ready");
-
-            // Start server status update thread
-            startServerStatusUpdater();
         } catch (Exception e) {
             log("Error starting server: " + e.getMessage());
             e.printStackTrace();
@@ -144,48 +196,135 @@ public class GameServerUI extends JFrame {
         }
     }
 
-    private void startServerStatusUpdater() {
-        Thread updater = new Thread(() -> {
-            while (server != null) {
-                try {
-                    SwingUtilities.invokeLater(() -> {
-                        try {
-                            int playerCount = server.getPlayers().size();
-                            playerCountLabel.setText("Players: " + playerCount + "/6");
-
-                            // Update player list
-                            playerListModel.clear();
-                            List<Player> players = server.getPlayers();
-                            for (Player p : players) {
-                                String status = p.isImposter() ? " (Imposter)" : "";
-                                playerListModel.addElement(p.getName() + status);
-                            }
-
-                            // Enable start button if enough players and game not started
-                            GameState state = server.getGameState();
-                            if (playerCount >= 3 && state == GameState.WAITING_FOR_PLAYERS) {
-                                startButton.setEnabled(true);
-                            } else {
-                                startButton.setEnabled(false);
-                            }
-                        } catch (RemoteException e) {
-                            log("Error updating status: " + e);
-                        }
-                    });
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    break;
+    // Room changes are pushed by the RoomManager, the view only touches a room when it changes
+
+    @Override
+    public void roomCreated(String roomId) {
+        SwingUtilities.invokeLater(() -> {
+            if (roomSelectorModel.getIndexOf(roomId) < 0) {
+                roomSelectorModel.addElement(roomId);
+            }
+            updateRoomCount();
+        });
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+        SwingUtilities.invokeLater(() -> {
+            roomSelectorModel.removeElement(roomId);
+            updateRoomCount();
+        });
+    }
+
+    @Override
+    public void rosterChanged(String roomId, GameEvent delta) {
+        SwingUtilities.invokeLater(() -> {
+            if (!roomId.equals(roomSelector.getSelectedItem())) {
+                return;
+            }
+            switch (delta) {
+                case GameEvent.PlayerJoined e -> playerListModel.addElement(e.playerName());
+                case GameEvent.PlayerLeft e -> playerListModel.removeElement(e.playerName());
+                case GameEvent.RosterReset e -> {
+                    playerListModel.clear();
+                    for (String name : e.playerNames()) {
+                        playerListModel.addElement(name);
+                    }
                 }
+                default -> {
+                    return;
+                }
+            }
+            updateSelectedRoomStatus();
+        });
+    }
+
+    @Override
+    public void stateChanged(String roomId, GameState state) {
+        SwingUtilities.invokeLater(() -> {
+            if (!roomId.equals(roomSelector.getSelectedItem())) {
+                return;
+            }
+            // the imposter is only known once words are handed out
+            if (state == GameState.WORD_DISTRIBUTION) {
+                reloadSelectedRoom();
+            } else {
+                updateSelectedRoomStatus();
             }
         });
-        updater.setDaemon(true);
-        updater.start();
+    }
+
+    private void updateMailboxMetrics() {
+        updateRoomCount();
+        mailboxListModel.clear();
+        if (server == null) {
+            return;
+        }
+        for (MailboxMetrics m : server.getRoomManager().getMailboxMetrics()) {
+            mailboxListModel.addElement(m.label() + " q=" + m.depth() + " lag=" + m.lagMillis() + "ms"
+                    + " coal=" + m.coalesced());
+        }
+    }
+
+    @Override
+    public void matchFinished(String roomId, MatchResult result) {
+        log("Match over in " + roomId + ": imposter " + result.imposter()
+                + (result.imposterCaught() ? " was caught" : " got away"));
+    }
+
+    @Override
+    public void commandFailed(String roomId, Throwable error) {
+        log("Command failed in " + roomId + ": " + error);
+    }
+
+    private void updateRoomCount() {
+        int waiting = server != null ? server.getRoomManager().getMatchmaker().getQueueSize() : 0;
+        roomCountLabel.setText("Rooms: " + roomSelectorModel.getSize() + "  Queued: " + waiting);
+    }
+
+    // Full copy of the selected room, only on selection change or when the game starts
+    private void reloadSelectedRoom() {
+        playerListModel.clear();
+        GameRoom room = selectedRoom();
+        if (room != null) {
+            for (Player p : room.getPlayerDetails()) {
+                String status = p.isImposter() ? " (Imposter)" : "";
+                playerListModel.addElement(p.getName() + status);
+            }
+        }
+        updateSelectedRoomStatus();
+    }
+
+    private void updateSelectedRoomStatus() {
+        GameRoom room = selectedRoom();
+        int playerCount = room != null ? playerListModel.getSize() : 0;
+        playerCountLabel.setText("Players: " + playerCount + "/" + GameRoom.MAX_PLAYERS);
+
+        // Enable start button if enough players and game not started
+        GameState state = room != null ? room.getGameState() : null;
+        if (playerCount >= GameRoom.MIN_PLAYERS && state == GameState.WAITING_FOR_PLAYERS) {
+            startButton.setEnabled(true);
+        } else {
+            startButton.setEnabled(false);
+        }
+    }
+
+    private GameRoom selectedRoom() {
+        String roomId = (String) roomSelector.getSelectedItem();
+        if (server == null || roomId == null) {
+            return null;
+        }
+        return server.getRoomManager().getRoom(roomId);
     }
 
     private void startGame() {
+        String roomId = (String) roomSelector.getSelectedItem();
+        if (roomId == null) {
+            return;
+        }
         try {
-            server.startGame();
-            log("Game Started");
+            server.startGame(roomId);
+            log("Game Started in " + roomId);
             startButton.setEnabled(false);
         } catch (RemoteException e) {
             log("Error starting game: " + e.getMessage());
@@ -193,26 +332,45 @@ public class GameServerUI extends JFrame {
         }
     }
 
+    // Swaps in the dictionary file again, running games keep their word
+    private void reloadWords() {
+        if (server == null) {
+            return;
+        }
+        WordSource words = server.getRoomManager().getWordSource();
+        if (words.reload()) {
+            log("Reloaded " + words.current().size() + " words from " + words.current().getSource());
+        } else {
+            log("Word bank not reloaded, still using " + words.current().getSource());
+        }
+    }
+
     private void stopServer() {
         try {
             if (registry != null) {
                 registry.unbind("ImposterGame");
-                Registry registry = LocateRegistry.getRegistry(1099);
-                registry.unbind("ImposterGame");
+            }
+        } catch (Exception e) {
+            log("Error unbinding server: " + e.getMessage());
+        } finally {
+            // a failed unbind must not keep the rooms, journal and match store from closing
+            mailboxTimer.stop();
+            if (nioServer != null) {
+                nioServer.stop();
+                nioServer = null;
             }
             if (server != null) {
+                server.shutdown();
                 server = null;
             }
+        }
 
-            statusLabel.setText("Status: Stopped");
-            statusLabel.setForeground(Color.RED);
-            startButton.setEnabled(false);
-            stopButton.setEnabled(false);
+        statusLabel.setText("Status: Stopped");
+        statusLabel.setForeground(Color.RED);
+        startButton.setEnabled(false);
+        stopButton.setEnabled(false);
 
-            log("Server stopped");
-        } catch (Exception e) {
-            log("Error stopping server: " + e.getMessage());
-        }
+        log("Server stopped");
     }
 
     public void log(String message) {
@@ -3,375 +3,215 @@ package server;
 import common.GameClientInterface;
 import common.GameInterface;
 import common.GameState;
-import common.Player;
+import common.LeaderboardEntry;
+import common.PlayerStats;
+import common.PlayerView;
+import common.RoomPage;
+import common.RosterSnapshot;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+// The single remote endpoint, routes every call to the room named by its room id
 public class ImposterGameImpl extends UnicastRemoteObject implements GameInterface {
-    private List<Player> players;
-    private Map<String, GameClientInterface> clientMap;
-    private GameState currentState;
-    private int currentPlayerIndex;
-    private int currentRound;
-    private String imposterName;
-    private ScheduledExecutorService scheduler;
-    private Timer turnTimer;
-    private Timer votingTimer;
-    private Set<String> votedPlayers;
-    private boolean votingComplete;
-    private final String[] WORDS = {"tower", "chalk", "school", "ice-cream", "rainbow", "sky", "storm", "carrot", "turtle", "wheel"};
-    private final String[] HINTS = {"high", "white", "kids", "cold", "colors", "blue", "dangerous", "bird", "slow", "black"};
+    // caps one leaderboard call so a client can't ask for the whole population at once
+    private static final int MAX_PAGE = 100;
+    // longest an RMI thread waits on a room's loop before giving up on the call
+    private static final long CALL_TIMEOUT_SECONDS = 5;
 
+    private final RoomManager roomManager;
 
     protected ImposterGameImpl() throws RemoteException {
         super();
-        this.players = Collections.synchronizedList(new ArrayList<>());
-        this.clientMap = new ConcurrentHashMap<>();
-        this.currentState = GameState.WAITING_FOR_PLAYERS;
-        this.currentRound = 0;
-        this.scheduler = Executors.newScheduledThreadPool(0);
-        this.votedPlayers = Collections.synchronizedSet(new HashSet<>());
+        this.roomManager = new RoomManager();
+    }
+
+    public RoomManager getRoomManager() {
+        return roomManager;
     }
 
     @Override
-    public synchronized boolean registerPlayer(String playerName, GameClientInterface client) throws RemoteException {
-        if (players.size() >= 6 || currentState != GameState.WAITING_FOR_PLAYERS) {
-            return false;
-        }
+    public long getServerTime() throws RemoteException {
+        return System.currentTimeMillis();
+    }
 
-        // Check if player name is already exist
-        for (Player p : players) {
-            if (p.getName().equals(playerName)) {
-                return false;
-            }
-        }
+    @Override
+    public String createRoom() throws RemoteException {
+        return roomManager.createRoom().getRoomId();
+    }
 
-        Player newPlayer = new Player(playerName);
-        players.add(newPlayer);
-        clientMap.put(playerName, client);
-        broadcastGameState();
-        return true;
+    @Override
+    public List<String> getRoomIds() throws RemoteException {
+        return roomManager.getRoomIds();
     }
 
     @Override
-    public synchronized void startGame() throws RemoteException {
-        if (players.size() < 3) {
-            return;
+    public RoomPage listRooms(int offset, int limit, boolean joinableOnly) throws RemoteException {
+        if (offset < 0 || limit < 0) {
+            throw new RemoteException("Invalid page: offset " + offset + ", limit " + limit);
         }
-        currentState = GameState.STARTING;
-        broadcastGameState();
-
-        // Select imposter
-        Random rand = new Random();
-        int imposterIndex = rand.nextInt(players.size());
-        imposterName = players.get(imposterIndex).getName();
+        return roomManager.getLobby().list(offset, limit, joinableOnly);
+    }
 
-        // Distribute words
-        int index = rand.nextInt(WORDS.length);
-        String word = WORDS[index];
-        String hint = HINTS[index];
+    @Override
+    public void subscribeLobby(GameClientInterface client) throws RemoteException {
+        roomManager.getLobby().subscribe(client);
+    }
 
-        try {
-            for (Player p : players) {
-                p.setImposter(p.getName().equals(imposterName));
-                if (p.isImposter()) {
-                    p.setWord(word);
-                    p.setHint(hint);
-                } else {
-                    p.setWord(word);
-                    p.setHint(hint);
-                }
+    @Override
+    public void unsubscribeLobby(GameClientInterface client) throws RemoteException {
+        roomManager.getLobby().unsubscribe(client);
+    }
 
-                GameClientInterface client = clientMap.get(p.getName());
-                if (client != null) {
-                    client.receiveWord(p.getWord(), p.isImposter(), p.getHint());
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    @Override
+    public boolean joinQueue(String playerName, GameClientInterface client) throws RemoteException {
+        if (!isValidName(playerName)) {
+            return false;
         }
-
-        currentState = GameState.WORD_DISTRIBUTION;
-        broadcastGameState();
-
-        // Start first round after a short delay
-        scheduler.schedule(this::startNextRound, 3, TimeUnit.SECONDS);
-
+        return roomManager.getMatchmaker().enqueue(playerName, client);
     }
 
-    private synchronized void startNextRound() {
-        try {
-            currentRound++;
-            if (currentRound > 3) {
-                startVoting();
-                return;
-            }
-
-            switch (currentRound) {
-                case 1:
-                    currentState = GameState.ROUND_1;
-                    break;
-                case 2:
-                    currentState = GameState.ROUND_2;
-                    break;
-                case 3:
-                    currentState = GameState.ROUND_3;
-                    break;
-            }
-            broadcastGameState();
-            currentPlayerIndex = 0;
-            startPlayerTurn();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    @Override
+    public boolean leaveQueue(String playerName) throws RemoteException {
+        return roomManager.getMatchmaker().cancel(playerName);
     }
 
-    private synchronized void startPlayerTurn() {
-        if (currentPlayerIndex >= players.size()) {
-            // End of round
-            scheduler.schedule(this::startNextRound, 2, TimeUnit.SECONDS);
-            return;
+    @Override
+    public boolean registerPlayer(String roomId, String playerName, GameClientInterface client) throws RemoteException {
+        if (roomId == null || roomId.isBlank() || !isValidName(playerName)) {
+            return false;
         }
-        try {
-            Player currentPlayer = players.get(currentPlayerIndex);
-            GameClientInterface client = clientMap.get(currentPlayer.getName());
-            if (client != null) {
-                client.setYourTurn(true, 30);
-            }
-            // Set timer for 30 seconds
-            if (turnTimer != null) {
-                turnTimer.cancel();
-            }
-
-            turnTimer = new Timer();
-            turnTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    try {
-                        // Auto skip if player didn't respond
-                        if (client != null) {
-                            client.setYourTurn(false, 0);
-                        }
-                        currentPlayerIndex++;
-                        startPlayerTurn();
-                    } catch (RemoteException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }, 30000);
-        } catch (RemoteException e) {
-            throw new RuntimeException(e);
+        GameRoom room = roomManager.getOrCreateRoom(roomId);
+        if (await(roomId, room.registerPlayer(playerName, client))) {
+            return true;
+        }
+        // The room may have closed between lookup and registration, its id goes to a fresh room
+        if (room.isClosed()) {
+            return await(roomId, roomManager.getOrCreateRoom(roomId).registerPlayer(playerName, client));
         }
+        return false;
     }
 
     @Override
-    public void sendMessage(String playerName, String message) throws RemoteException {
-        // Verify it's the correct player's turn
-        if (currentPlayerIndex < players.size() && players.get(currentPlayerIndex).getName().equals(playerName)) {
-
-            // cancel the turn timer
-            if (turnTimer != null) {
-                turnTimer.cancel();
-            }
-
-            // Broadcast message to all players
-            for (GameClientInterface client : clientMap.values()) {
-                client.updateChat(playerName, message);
-            }
-
-            // move to next player
-            GameClientInterface currentClient = clientMap.get(playerName);
-            if (currentClient != null) {
-                currentClient.setYourTurn(false, 0);
-            }
-            currentPlayerIndex++;
-            startPlayerTurn();
+    public void leaveRoom(String roomId, String playerName) throws RemoteException {
+        GameRoom room = roomManager.getRoom(roomId);
+        if (room != null) {
+            room.removePlayer(playerName).thenAccept(closed -> {
+                if (closed) {
+                    roomManager.removeClosedRoom(room);
+                }
+            });
         }
-
     }
 
-    private synchronized void startVoting() {
-        try {
-            currentState = GameState.VOTING;
-            broadcastGameState();
-            votingComplete = false;
-
-            // Reset votes
-            for (Player p : players) {
-                p.setVotes(0);
-            }
-
-            // Start voting timer for 30 seconds
-            startVotingTimer(30);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    @Override
+    public boolean spectate(String roomId, GameClientInterface client) throws RemoteException {
+        GameRoom room = roomManager.getRoom(roomId);
+        return room != null && room.spectate(client);
     }
 
-    private void startVotingTimer(int seconds) {
-        if (votingTimer != null) {
-            votingTimer.cancel();
+    @Override
+    public void stopSpectating(String roomId, GameClientInterface client) throws RemoteException {
+        GameRoom room = roomManager.getRoom(roomId);
+        if (room != null) {
+            room.stopSpectating(client);
         }
-
-        votingTimer = new Timer();
-        votingTimer.schedule(new TimerTask() {
-            int timeLeft = seconds;
-
-            @Override
-            public void run() {
-                try {
-                    if (votingComplete) {
-                        return;
-                    }
-
-                    timeLeft--;
-
-                    // Update timer for all clients
-                    for (GameClientInterface client : clientMap.values()) {
-                        client.updateVotingTimer(timeLeft);
-                    }
-
-                    if (timeLeft <= 0 || votingComplete) {
-                        votingTimer.cancel();
-                        if (!votingComplete) {
-                            calculateResults();
-                        }
-                    }
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
-            }
-        }, 0, 1000);
     }
 
     @Override
-    public synchronized void submitVote(String playerName, String votedPlayer) throws RemoteException {
-        if (currentState != GameState.VOTING || votingComplete) {
-            return;
-        }
-
-        // Check if player already voted
-        if (votedPlayers.contains(playerName)) {
-            return;
-        }
+    public boolean heartbeat(String roomId, String playerName) throws RemoteException {
+        GameRoom room = roomManager.getRoom(roomId);
+        return room != null && await(roomId, room.heartbeat(playerName));
+    }
 
-        // Record vote
-        for (Player p : players) {
-            if (p.getName().equals(votedPlayer)) {
-                p.addVote();
-                break;
-            }
-        }
+    @Override
+    public void startGame(String roomId) throws RemoteException {
+        room(roomId).startGame();
+    }
 
-        votedPlayers.add(playerName);
+    @Override
+    public void sendMessage(String roomId, String playerName, String message) throws RemoteException {
+        room(roomId).sendMessage(playerName, message);
+    }
 
-        // Notify client that vote was recorded
-        GameClientInterface client = clientMap.get(playerName);
-        if (client != null) {
-            client.voteRecorded();
-        }
+    @Override
+    public void submitVote(String roomId, String playerName, String votedPlayer) throws RemoteException {
+        room(roomId).submitVote(playerName, votedPlayer);
+    }
 
-        // Check if all players have voted
-        if (votedPlayers.size() >= players.size()) {
-            votingComplete = true;
-            if (votingTimer != null) {
-                votingTimer.cancel();
-            }
-            calculateResults();
-        }
+    @Override
+    public void replayGame(String roomId) throws RemoteException {
+        room(roomId).replayGame();
     }
 
+    @Override
+    public List<PlayerView> getPlayers(String roomId) throws RemoteException {
+        return room(roomId).getPlayers();
+    }
 
-    private synchronized void calculateResults() {
-        try {
-            currentState = GameState.RESULT;
+    @Override
+    public RosterSnapshot getRoster(String roomId, long knownVersion) throws RemoteException {
+        RosterSnapshot roster = room(roomId).getRoster();
+        return roster.version() == knownVersion ? null : roster;
+    }
 
-            // Find player with most votes
-            Player votedPlayer = null;
-            int maxVote = -1;
+    @Override
+    public GameState getGameState(String roomId) throws RemoteException {
+        return room(roomId).getGameState();
+    }
 
-            for (Player p : players) {
-                if (p.getVotes() > maxVote) {
-                    maxVote = p.getVotes();
-                    votedPlayer = p;
-                }
-            }
+    @Override
+    public PlayerStats getPlayerStats(String playerName) throws RemoteException {
+        return roomManager.getMatchStore().getStats(playerName);
+    }
 
-            // Handle tie a breaker (if multiple players have same votes, no one is eliminated)
-            int voteCount = 0;
-            for (Player p : players) {
-                if (p.getVotes() == maxVote) {
-                    voteCount++;
-                }
-            }
-            boolean imposterCaught = false;
-            if (voteCount == 1 && votedPlayer != null) {
-                imposterCaught = votedPlayer.isImposter();
-            }
-
-            // Send results to each player
-            for (Player p : players) {
-                GameClientInterface client = clientMap.get(p.getName());
-                if (client != null) {
-                    String resultMessage;
-                    if (voteCount > 1) {
-                        resultMessage = "It's a tie! No one was eliminated.\nThe imposter was: " + imposterName;
-                    } else {
-                        resultMessage = "Most voted: " + (votedPlayer != null ? votedPlayer.getName() : "None") +
-                                "\nThe imposter was: " + imposterName;
-
-                    }
-                    client.showVotingResult(imposterName, imposterCaught ? !p.isImposter() : p.isImposter(), resultMessage);
-                }
-            }
-            currentState = GameState.GAME_OVER;
-            broadcastGameState();
-        } catch (RemoteException e) {
-            e.printStackTrace();
+    @Override
+    public List<LeaderboardEntry> getLeaderboard(int offset, int limit) throws RemoteException {
+        if (offset < 0 || limit < 0) {
+            throw new RemoteException("Invalid page: offset " + offset + ", limit " + limit);
         }
+        return roomManager.getLeaderboard().page(offset, Math.min(limit, MAX_PAGE));
     }
 
     @Override
-    public void replayGame() throws RemoteException {
-        // Reset game state
-        currentRound = 0;
-        currentState = GameState.WAITING_FOR_PLAYERS;
-        votedPlayers.clear();
-        votingComplete=false;
-
-        // Reset players
-        for (Player p : players) {
-            p.setImposter(false);
-            p.setVotes(0);
-            p.setWord(null);
-            p.setHint(null);
-        }
-        broadcastGameState();
+    public LeaderboardEntry getRank(String playerName) throws RemoteException {
+        return roomManager.getLeaderboard().rankOf(playerName);
     }
 
-    private void broadcastGameState() {
-        try {
-            for (GameClientInterface client : clientMap.values()) {
-                client.gameStateChanged(currentState);
-            }
-        } catch (RemoteException e) {
-            e.printStackTrace();
+    public void shutdown() {
+        roomManager.shutdown();
+    }
+
+    private GameRoom room(String roomId) throws RemoteException {
+        GameRoom room = roomManager.getRoom(roomId);
+        if (room == null) {
+            throw new RemoteException("Unknown room: " + roomId);
         }
+        return room;
     }
 
-    @Override
-    public List<Player> getPlayers() throws RemoteException {
-        return new ArrayList<>(players);
+    // A room command that failed or never ran surfaces as a RemoteException, not a hung call
+    private static boolean await(String roomId, CompletableFuture<Boolean> result) throws RemoteException {
+        try {
+            return result.get(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new RemoteException("Room " + roomId + " failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            throw new RemoteException("Room " + roomId + " did not answer");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted waiting for room " + roomId);
+        }
     }
 
-    @Override
-    public GameState getGameState() throws RemoteException {
-        return currentState;
+    // Names key every seat and are stored one per line, so they must be there and free of
+    // line breaks and other control characters
+    private static boolean isValidName(String playerName) {
+        return playerName != null && !playerName.isBlank() && playerName.chars().noneMatch(Character::isISOControl);
     }
 }
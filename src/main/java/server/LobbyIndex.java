@@ -0,0 +1,181 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import common.RoomPage;
+import common.RoomSummary;
+import stats.MatchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Room listing for the lobby. Room changes only mark the room dirty, a flush on the
+// timing wheel folds them into a sorted index and publishes an immutable listing per
+// version, so a page request is a slice of the current listing whatever the number of
+// browsing clients. The same flush sends subscribers what changed since the last one.
+public class LobbyIndex implements RoomListener {
+    static final long FLUSH_MILLIS = 250;
+    // caps one listing call so a client can't ask for every room at once
+    static final int MAX_PAGE = 100;
+    // Broadcaster scope of every subscriber's lobby mailbox
+    static final String MAILBOX = "lobby";
+
+    private final Function<String, GameRoom> rooms;
+    private final TimingWheel timers;
+    private final Broadcaster broadcaster;
+    private final Set<String> dirty;
+    private final Set<GameClientInterface> subscribers;
+    // only touched by the flush, which never runs twice at once
+    private final TreeMap<String, RoomSummary> index;
+    // orders snapshots for new subscribers against the deltas of the flush
+    private final ReentrantLock publishLock;
+    private volatile Listing listing;
+    private volatile boolean running;
+
+    public LobbyIndex(Function<String, GameRoom> rooms, TimingWheel timers, Broadcaster broadcaster) {
+        this.rooms = rooms;
+        this.timers = timers;
+        this.broadcaster = broadcaster;
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.subscribers = ConcurrentHashMap.newKeySet();
+        this.index = new TreeMap<>();
+        this.publishLock = new ReentrantLock();
+        this.listing = new Listing(0, new RoomSummary[0], new RoomSummary[0]);
+        this.running = true;
+        timers.schedule(this::flush, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public RoomPage list(int offset, int limit, boolean joinableOnly) {
+        Listing current = listing;
+        RoomSummary[] rows = joinableOnly ? current.joinable : current.all;
+        int from = Math.min(Math.max(0, offset), rows.length);
+        int to = Math.min(rows.length, from + Math.max(0, Math.min(limit, MAX_PAGE)));
+        return new RoomPage(current.version, rows.length, List.of(Arrays.copyOfRange(rows, from, to)));
+    }
+
+    public long getVersion() {
+        return listing.version;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void subscribe(GameClientInterface client) {
+        if (client == null) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            if (subscribers.add(client)) {
+                // a subscriber the broadcaster gives up on is gone for good
+                broadcaster.register(client, MAILBOX, () -> subscribers.remove(client));
+                // start from the full listing, every delta after it follows on the same mailbox
+                Listing current = listing;
+                broadcaster.send(client, MAILBOX, new GameEvent.LobbyChanged(current.version, List.of(current.all), List.of()));
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    public void unsubscribe(GameClientInterface client) {
+        if (client != null) {
+            subscribers.remove(client);
+            broadcaster.forget(client, MAILBOX);
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private void flush() {
+        try {
+            if (!dirty.isEmpty()) {
+                apply();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        if (running) {
+            timers.schedule(this::flush, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void apply() {
+        List<RoomSummary> updated = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String roomId = it.next();
+            it.remove();
+            GameRoom room = rooms.apply(roomId);
+            if (room == null) {
+                if (index.remove(roomId) != null) {
+                    removed.add(roomId);
+                }
+                continue;
+            }
+            RoomSummary summary = new RoomSummary(roomId, room.getPlayerCount(), GameRoom.MAX_PLAYERS, room.getGameState());
+            if (!summary.equals(index.put(roomId, summary))) {
+                updated.add(summary);
+            }
+        }
+        if (updated.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        RoomSummary[] all = index.values().toArray(new RoomSummary[0]);
+        List<RoomSummary> joinable = new ArrayList<>();
+        for (RoomSummary summary : all) {
+            if (summary.isJoinable()) {
+                joinable.add(summary);
+            }
+        }
+        Listing next = new Listing(listing.version + 1, all, joinable.toArray(new RoomSummary[0]));
+        publishLock.lock();
+        try {
+            listing = next;
+            if (!subscribers.isEmpty()) {
+                broadcaster.broadcast(subscribers, MAILBOX, new GameEvent.LobbyChanged(next.version, updated, removed));
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    @Override
+    public void roomCreated(String roomId) {
+        dirty.add(roomId);
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+        dirty.add(roomId);
+    }
+
+    @Override
+    public void rosterChanged(String roomId, GameEvent delta) {
+        dirty.add(roomId);
+    }
+
+    @Override
+    public void stateChanged(String roomId, GameState state) {
+        dirty.add(roomId);
+    }
+
+    @Override
+    public void matchFinished(String roomId, MatchResult result) {
+    }
+
+    private record Listing(long version, RoomSummary[] all, RoomSummary[] joinable) {
+    }
+}
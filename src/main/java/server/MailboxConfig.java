@@ -0,0 +1,11 @@
+package server;
+
+// Limits for the per-client outbound mailboxes, overridable with system properties
+public record MailboxConfig(int capacity, long lagThresholdMillis) {
+
+    public static MailboxConfig fromSystemProperties() {
+        return new MailboxConfig(
+                Integer.getInteger("imposter.mailbox.capacity", 256),
+                Long.getLong("imposter.mailbox.lagMillis", 5000));
+    }
+}
@@ -0,0 +1,5 @@
+package server;
+
+// Point in time view of one client's outbound mailbox
+public record MailboxMetrics(String label, int depth, long delivered, long coalesced, long lagMillis) {
+}
@@ -0,0 +1,133 @@
+package server;
+
+import common.GameClientInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Seats queued players into fresh rooms and starts them without an operator. Enqueueing
+// is a lock-free append, one drainer thread takes players strictly in arrival order, so
+// the queue stays fair and callers never wait on each other. Leaving the queue only
+// removes the ticket from the index, the drainer skips stale tickets when it meets them.
+public class Matchmaker {
+    private final Supplier<GameRoom> roomFactory;
+    private final MatchmakerConfig config;
+    private final Queue<Ticket> queue;
+    // live ticket per queued name, removing it here is what claims or cancels a ticket
+    private final Map<String, Ticket> queued;
+    private final Thread drainer;
+    private volatile boolean running;
+
+    public Matchmaker(Supplier<GameRoom> roomFactory, MatchmakerConfig config) {
+        this.roomFactory = roomFactory;
+        this.config = config;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.queued = new ConcurrentHashMap<>();
+        this.running = true;
+        this.drainer = new Thread(this::drain, "matchmaker");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    // False when the name is already waiting
+    public boolean enqueue(String playerName, GameClientInterface client) {
+        if (!running || playerName == null || playerName.isBlank() || client == null) {
+            return false;
+        }
+        Ticket ticket = new Ticket(playerName, client, System.nanoTime());
+        if (queued.putIfAbsent(playerName, ticket) != null) {
+            return false;
+        }
+        queue.offer(ticket);
+        LockSupport.unpark(drainer);
+        return true;
+    }
+
+    // False when the player already got a room or wasn't queued
+    public boolean cancel(String playerName) {
+        return playerName != null && queued.remove(playerName) != null;
+    }
+
+    public int getQueueSize() {
+        return queued.size();
+    }
+
+    public MatchmakerConfig getConfig() {
+        return config;
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(drainer);
+    }
+
+    private void drain() {
+        // players taken off the queue for the next room, oldest first
+        List<Ticket> batch = new ArrayList<>(config.roomSize());
+        long maxWait = TimeUnit.MILLISECONDS.toNanos(config.maxWaitMillis());
+        while (running) {
+            batch.removeIf(t -> queued.get(t.playerName) != t);
+            Ticket ticket;
+            while (batch.size() < config.roomSize() && (ticket = queue.poll()) != null) {
+                if (queued.get(ticket.playerName) == ticket) {
+                    batch.add(ticket);
+                }
+            }
+            if (batch.size() == config.roomSize()) {
+                launch(batch);
+                continue;
+            }
+            if (batch.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            long waited = System.nanoTime() - batch.get(0).enqueuedAt;
+            if (waited >= maxWait) {
+                if (batch.size() >= GameRoom.MIN_PLAYERS) {
+                    launch(batch);
+                    continue;
+                }
+                // not enough players to play yet, look again shortly
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+            } else {
+                LockSupport.parkNanos(this, maxWait - waited);
+            }
+        }
+    }
+
+    private void launch(List<Ticket> batch) {
+        List<Ticket> claimed = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            // a player who left the queue at the last moment loses the race here
+            if (queued.remove(ticket.playerName, ticket)) {
+                claimed.add(ticket);
+            }
+        }
+        batch.clear();
+        if (claimed.size() < GameRoom.MIN_PLAYERS) {
+            // too many left to play, the rest keep their place at the front
+            for (Ticket ticket : claimed) {
+                if (queued.putIfAbsent(ticket.playerName, ticket) == null) {
+                    batch.add(ticket);
+                }
+            }
+            return;
+        }
+        GameRoom room = roomFactory.get();
+        for (Ticket ticket : claimed) {
+            room.assignPlayer(ticket.playerName, ticket.client);
+        }
+        // the room runs its commands in order, everyone is seated and knows the room before the game starts
+        room.startGame();
+    }
+
+    private record Ticket(String playerName, GameClientInterface client, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,17 @@
+package server;
+
+// Matchmaking limits, overridable with system properties. A batch starts as soon as it
+// has roomSize players, or once its first player has waited maxWaitMillis and at least
+// GameRoom.MIN_PLAYERS are queued.
+public record MatchmakerConfig(int roomSize, long maxWaitMillis) {
+
+    public MatchmakerConfig {
+        roomSize = Math.max(GameRoom.MIN_PLAYERS, Math.min(GameRoom.MAX_PLAYERS, roomSize));
+    }
+
+    public static MatchmakerConfig fromSystemProperties() {
+        return new MatchmakerConfig(
+                Integer.getInteger("imposter.match.size", 4),
+                Long.getLong("imposter.match.waitMillis", 10000));
+    }
+}
@@ -0,0 +1,28 @@
+package server;
+
+import common.GameEvent;
+import common.GameState;
+import stats.MatchResult;
+
+// In-process subscriber to room changes, used by the admin view instead of polling.
+// Called from the room's event loop, implementations must hand work off and return quickly.
+public interface RoomListener {
+    void roomCreated(String roomId);
+
+    void roomRemoved(String roomId);
+
+    void rosterChanged(String roomId, GameEvent delta);
+
+    void stateChanged(String roomId, GameState state);
+
+    void matchFinished(String roomId, MatchResult result);
+
+    // The room has had nobody connected for GameRoom.IDLE_SECONDS and closed itself,
+    // only the manager acts on this, everybody else hears roomRemoved right after
+    default void roomIdle(String roomId) {
+    }
+
+    // A command on the room's loop threw, the room carries on with the next one
+    default void commandFailed(String roomId, Throwable error) {
+    }
+}
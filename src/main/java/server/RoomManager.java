@@ -0,0 +1,251 @@
+package server;
+
+import common.GameEvent;
+import common.GameState;
+import journal.EventJournal;
+import journal.RecoveredGame;
+import stats.Leaderboard;
+import stats.MatchResult;
+import stats.MatchStore;
+import words.WordSampler;
+import words.WordSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Creates, indexes and tears down the independent game rooms hosted by this server
+public class RoomManager {
+    private final Map<String, GameRoom> rooms;
+    private final AtomicLong nextRoomId;
+    // generated ids carry the node id when there is one, so they are unique across a cluster
+    private final String roomPrefix;
+    private final ExecutorService loopExecutor;
+    private final ExecutorService timerExecutor;
+    private final ExecutorService spectatorExecutor;
+    private final TimingWheel timers;
+    private final Broadcaster broadcaster;
+    private final WordSource wordSource;
+    // rooms draw only from this category of the bank, the whole bank when null or unknown
+    private final String wordCategory;
+    private final EventJournal journal;
+    private final MatchStore matchStore;
+    private final Leaderboard leaderboard;
+    private final Matchmaker matchmaker;
+    private final LobbyIndex lobby;
+    private final List<RoomListener> listeners;
+    private final RoomListener dispatcher;
+
+    public RoomManager() {
+        this.rooms = new ConcurrentHashMap<>();
+        this.nextRoomId = new AtomicLong(1);
+        String node = System.getProperty("imposter.node");
+        this.roomPrefix = node != null ? "room-" + node + "-" : "room-";
+        // room event loops drain on virtual threads, one at a time per room
+        this.loopExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("room-loop-", 0).factory());
+        this.timerExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("room-timer-", 0).factory());
+        // spectator delivery is its own tier, watchers never share threads with room loops
+        this.spectatorExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("spectator-", 0).factory());
+        // 100ms ticks, one lap of the wheel covers 51.2 seconds
+        this.timers = new TimingWheel(100, TimeUnit.MILLISECONDS, 512, timerExecutor);
+        this.broadcaster = new Broadcaster(MailboxConfig.fromSystemProperties());
+        this.wordSource = WordSource.fromSystemProperties();
+        this.wordCategory = System.getProperty("imposter.words.category");
+        this.journal = EventJournal.fromSystemProperties();
+        this.matchStore = MatchStore.fromSystemProperties();
+        this.leaderboard = new Leaderboard();
+        // ratings are derived from the history, replayed before any room can finish a match
+        matchStore.replay(leaderboard::record);
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.dispatcher = new Dispatcher();
+        this.matchmaker = new Matchmaker(this::createRoom, MatchmakerConfig.fromSystemProperties());
+        this.lobby = new LobbyIndex(rooms::get, timers, broadcaster);
+        listeners.add(lobby);
+    }
+
+    public LobbyIndex getLobby() {
+        return lobby;
+    }
+
+    public Matchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
+    public MatchStore getMatchStore() {
+        return matchStore;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public WordSource getWordSource() {
+        return wordSource;
+    }
+
+    public List<MailboxMetrics> getMailboxMetrics() {
+        return broadcaster.metrics();
+    }
+
+    public void addListener(RoomListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RoomListener listener) {
+        listeners.remove(listener);
+    }
+
+    public GameRoom createRoom() {
+        while (true) {
+            String roomId = roomPrefix + nextRoomId.getAndIncrement();
+            GameRoom room = newRoom(roomId);
+            if (rooms.putIfAbsent(roomId, room) == null) {
+                dispatcher.roomCreated(roomId);
+                return room;
+            }
+        }
+    }
+
+    public GameRoom getOrCreateRoom(String roomId) {
+        while (true) {
+            GameRoom room = rooms.get(roomId);
+            if (room == null) {
+                GameRoom created = newRoom(roomId);
+                room = rooms.putIfAbsent(roomId, created);
+                if (room == null) {
+                    dispatcher.roomCreated(roomId);
+                    return created;
+                }
+            }
+            // a room that closed itself stays in the map until whoever closed it drops it
+            if (!room.isClosed()) {
+                return room;
+            }
+            removeClosedRoom(room);
+        }
+    }
+
+    private GameRoom newRoom(String roomId) {
+        return new GameRoom(roomId, loopExecutor, timers, broadcaster, new WordSampler(wordSource, wordCategory),
+                journal, spectatorExecutor, dispatcher);
+    }
+
+    // Brings back the matches that were running when the server went down, returns how many
+    public int recoverRooms() {
+        int count = 0;
+        for (RecoveredGame game : journal.getRecoveredGames().values()) {
+            getOrCreateRoom(game.roomId()).restore(game);
+            count++;
+        }
+        return count;
+    }
+
+    public GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    public void removeRoom(String roomId) {
+        GameRoom room = rooms.remove(roomId);
+        if (room != null) {
+            room.close();
+            dispatcher.roomRemoved(roomId);
+        }
+    }
+
+    // Drops a room that closed itself on its loop, the id may already belong to a newer room
+    public void removeClosedRoom(GameRoom room) {
+        if (room.isClosed() && rooms.remove(room.getRoomId(), room)) {
+            dispatcher.roomRemoved(room.getRoomId());
+        }
+    }
+
+    public Collection<GameRoom> getRooms() {
+        return rooms.values();
+    }
+
+    public List<String> getRoomIds() {
+        return new ArrayList<>(rooms.keySet());
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public void shutdown() {
+        matchmaker.shutdown();
+        lobby.stop();
+        // close the journal first so closing the rooms doesn't mark their games as ended
+        journal.close();
+        for (String roomId : getRoomIds()) {
+            removeRoom(roomId);
+        }
+        timers.stop();
+        timerExecutor.shutdownNow();
+        loopExecutor.shutdownNow();
+        spectatorExecutor.shutdownNow();
+        broadcaster.shutdown();
+        matchStore.close();
+    }
+
+    // Fans room notifications out to every registered listener
+    private class Dispatcher implements RoomListener {
+        @Override
+        public void matchFinished(String roomId, MatchResult result) {
+            matchStore.record(result);
+            leaderboard.record(result);
+            for (RoomListener l : listeners) {
+                l.matchFinished(roomId, result);
+            }
+        }
+
+        @Override
+        public void roomCreated(String roomId) {
+            for (RoomListener l : listeners) {
+                l.roomCreated(roomId);
+            }
+        }
+
+        @Override
+        public void roomRemoved(String roomId) {
+            for (RoomListener l : listeners) {
+                l.roomRemoved(roomId);
+            }
+        }
+
+        @Override
+        public void roomIdle(String roomId) {
+            GameRoom room = rooms.get(roomId);
+            if (room != null) {
+                removeClosedRoom(room);
+            }
+        }
+
+        @Override
+        public void commandFailed(String roomId, Throwable error) {
+            for (RoomListener l : listeners) {
+                l.commandFailed(roomId, error);
+            }
+        }
+
+        @Override
+        public void rosterChanged(String roomId, GameEvent delta) {
+            for (RoomListener l : listeners) {
+                l.rosterChanged(roomId, delta);
+            }
+        }
+
+        @Override
+        public void stateChanged(String roomId, GameState state) {
+            for (RoomListener l : listeners) {
+                l.stateChanged(roomId, state);
+            }
+        }
+    }
+}
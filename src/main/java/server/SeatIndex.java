@@ -0,0 +1,111 @@
+package server;
+
+import common.GameClientInterface;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Compact player index for one room. A name is hashed to its seat once when a call
+// arrives, after that every hot path works on small integer seat ids and plain arrays.
+// Only used from the room's event loop, so nothing here is synchronized.
+final class SeatIndex {
+    static final int NO_SEAT = -1;
+
+    private final String[] names;
+    private final GameClientInterface[] clients;
+    private final Map<String, Integer> seatByName;
+    // occupied seats in join order, used for roster and turn order
+    private final int[] order;
+    private int size;
+
+    SeatIndex(int capacity) {
+        this.names = new String[capacity];
+        this.clients = new GameClientInterface[capacity];
+        this.seatByName = new HashMap<>(capacity * 2);
+        this.order = new int[capacity];
+    }
+
+    // Returns the new seat, or NO_SEAT when the room is full or the name is missing or taken
+    int assign(String name, GameClientInterface client) {
+        if (name == null || size == names.length || seatByName.containsKey(name)) {
+            return NO_SEAT;
+        }
+        int seat = 0;
+        while (names[seat] != null) {
+            seat++;
+        }
+        names[seat] = name;
+        clients[seat] = client;
+        seatByName.put(name, seat);
+        order[size++] = seat;
+        return seat;
+    }
+
+    void release(int seat) {
+        seatByName.remove(names[seat]);
+        names[seat] = null;
+        clients[seat] = null;
+        for (int i = 0; i < size; i++) {
+            if (order[i] == seat) {
+                System.arraycopy(order, i + 1, order, i, size - i - 1);
+                size--;
+                break;
+            }
+        }
+    }
+
+    // Binds a client to a seat again, used when a player comes back under the same name
+    void attach(int seat, GameClientInterface client) {
+        clients[seat] = client;
+    }
+
+    // Keeps the seat but stops delivering to it, used when a player leaves mid game
+    void detach(int seat) {
+        clients[seat] = null;
+    }
+
+    int seatOf(String name) {
+        Integer seat = seatByName.get(name);
+        return seat != null ? seat : NO_SEAT;
+    }
+
+    // Immutable copy of the name to seat map, safe to read from any thread
+    Map<String, Integer> snapshot() {
+        return Map.copyOf(seatByName);
+    }
+
+    String name(int seat) {
+        return names[seat];
+    }
+
+    GameClientInterface client(int seat) {
+        return clients[seat];
+    }
+
+    boolean isAttached(int seat) {
+        return clients[seat] != null;
+    }
+
+    // i-th occupied seat in join order
+    int seatAt(int i) {
+        return order[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return names.length;
+    }
+
+    int attachedCount() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (clients[order[i]] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,240 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fan-out tier for the watchers of one room. The room appends every public event once to
+// a shared bounded log and wakes the relay, that is all the game loop pays however many
+// spectators there are. The relay's pump hands each idle spectator everything after its
+// cursor, spectators at the same position share one batch list. A spectator that falls
+// further behind than the log holds, or that just arrived, gets a compact snapshot
+// folded from the stream instead of the history.
+final class SpectatorRelay {
+    static final int LOG_CAPACITY = 1024;
+    // chat lines kept for a late joiner's snapshot
+    static final int CHAT_TAIL = 20;
+
+    private final Executor executor;
+    private final ReentrantLock lock;
+    private final Map<GameClientInterface, Spectator> spectators;
+    private final AtomicBoolean pumpScheduled;
+    // event n lives at log[n % LOG_CAPACITY], head is the number of events ever appended
+    private final GameEvent[] log;
+    private long head;
+    // snapshot state, folded from the appended events
+    private GameState state;
+    private long rosterVersion;
+    private final Set<String> players;
+    private final Deque<GameEvent> chat;
+    private GameEvent.VotingDeadline deadline;
+    private GameEvent.VotingResult result;
+    // last batch built, reused for every spectator at the same cursor
+    private long batchFrom;
+    private long batchTo;
+    private List<GameEvent> batch;
+    private boolean closed;
+
+    SpectatorRelay(Executor executor) {
+        this.executor = executor;
+        this.lock = new ReentrantLock();
+        this.spectators = new ConcurrentHashMap<>();
+        this.pumpScheduled = new AtomicBoolean();
+        this.log = new GameEvent[LOG_CAPACITY];
+        this.state = GameState.WAITING_FOR_PLAYERS;
+        this.players = new LinkedHashSet<>();
+        this.chat = new ArrayDeque<>(CHAT_TAIL);
+        this.batch = List.of();
+    }
+
+    // Called from the room loop, delivery starts on the next signal
+    void append(GameEvent event) {
+        lock.lock();
+        try {
+            log[(int) (head % LOG_CAPACITY)] = event;
+            head++;
+            fold(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Wakes the pump once per room command, not once per event
+    void signal() {
+        if (!spectators.isEmpty() && pumpScheduled.compareAndSet(false, true)) {
+            executor.execute(this::pump);
+        }
+    }
+
+    boolean add(GameClientInterface client) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            // a fresh spectator starts behind the log, so its first batch is the snapshot
+            spectators.putIfAbsent(client, new Spectator(client));
+        } finally {
+            lock.unlock();
+        }
+        signal();
+        return true;
+    }
+
+    void remove(GameClientInterface client) {
+        spectators.remove(client);
+    }
+
+    int size() {
+        return spectators.size();
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            spectators.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fold(GameEvent event) {
+        switch (event) {
+            case GameEvent.StateChanged e -> {
+                state = e.state();
+                if (state == GameState.WAITING_FOR_PLAYERS || state == GameState.STARTING) {
+                    chat.clear();
+                    deadline = null;
+                    result = null;
+                }
+            }
+            case GameEvent.Chat e -> {
+                if (chat.size() == CHAT_TAIL) {
+                    chat.removeFirst();
+                }
+                chat.addLast(e);
+            }
+            case GameEvent.VotingDeadline e -> deadline = e;
+            case GameEvent.VotingResult e -> result = e;
+            case GameEvent.RosterReset e -> {
+                rosterVersion = e.version();
+                players.clear();
+                players.addAll(e.playerNames());
+            }
+            case GameEvent.PlayerJoined e -> {
+                rosterVersion = e.version();
+                players.add(e.playerName());
+            }
+            case GameEvent.PlayerLeft e -> {
+                rosterVersion = e.version();
+                players.remove(e.playerName());
+            }
+            case GameEvent.RosterChange e -> rosterVersion = e.version();
+            default -> {
+            }
+        }
+    }
+
+    private List<GameEvent> snapshot() {
+        List<GameEvent> events = new ArrayList<>(chat.size() + 4);
+        events.add(new GameEvent.RosterReset(rosterVersion, List.copyOf(players)));
+        events.add(new GameEvent.StateChanged(state));
+        events.addAll(chat);
+        if (state == GameState.VOTING && deadline != null) {
+            events.add(deadline);
+        }
+        if (result != null) {
+            events.add(result);
+        }
+        return events;
+    }
+
+    // Events after cursor up to head, under the lock
+    private List<GameEvent> eventsFrom(long cursor) {
+        if (cursor == batchFrom && head == batchTo) {
+            return batch;
+        }
+        GameEvent[] events = new GameEvent[(int) (head - cursor)];
+        for (long n = cursor; n < head; n++) {
+            events[(int) (n - cursor)] = log[(int) (n % LOG_CAPACITY)];
+        }
+        batchFrom = cursor;
+        batchTo = head;
+        batch = List.of(events);
+        return batch;
+    }
+
+    private void pump() {
+        pumpScheduled.set(false);
+        for (Spectator spectator : spectators.values()) {
+            boolean start = false;
+            lock.lock();
+            try {
+                if (!spectator.draining && spectator.cursor < head) {
+                    spectator.draining = true;
+                    start = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (start) {
+                executor.execute(() -> drain(spectator));
+            }
+        }
+    }
+
+    private void drain(Spectator spectator) {
+        while (true) {
+            List<GameEvent> events;
+            lock.lock();
+            try {
+                if (closed || spectator.cursor >= head) {
+                    spectator.draining = false;
+                    return;
+                }
+                events = spectator.cursor < head - LOG_CAPACITY ? snapshot() : eventsFrom(spectator.cursor);
+                spectator.cursor = head;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                spectator.client.onEvents(events);
+            } catch (Exception e) {
+                // a watcher that can't be reached is simply dropped, players never notice
+                spectators.remove(spectator.client, spectator);
+                lock.lock();
+                try {
+                    spectator.draining = false;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private static final class Spectator {
+        private final GameClientInterface client;
+        // next event to deliver, guarded by the relay lock
+        private long cursor;
+        private boolean draining;
+
+        Spectator(GameClientInterface client) {
+            this.client = client;
+            this.cursor = -LOG_CAPACITY - 1;
+        }
+    }
+}
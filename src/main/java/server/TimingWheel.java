@@ -0,0 +1,206 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server-wide hashed timing wheel. One ticker thread serves every turn, round and
+// voting deadline of every room. schedule and cancel are O(1), expired tasks run on
+// the given executor so a slow task never delays the wheel.
+public class TimingWheel {
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> pending;
+    private final Queue<Timeout> cancelled;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running;
+    private long tick;
+
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tick duration and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.executor = executor;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.worker = new Thread(this::run, "timing-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("timing wheel stopped");
+        }
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        // bounded so a flood of new timeouts can't starve the tick
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == ST_CANCELLED) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+            return;
+        }
+        try {
+            executor.execute(timeout.task);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(ST_INIT);
+        }
+
+        // Returns false if the task already fired or was cancelled before
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+    }
+
+    // Doubly linked list of timeouts, only touched by the worker thread
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    TimingWheel.this.expire(timeout);
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
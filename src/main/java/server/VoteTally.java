@@ -0,0 +1,138 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free vote counting for one voting phase. Votes can land from any thread,
+// the leader and tie status are kept current on every vote so the result is
+// available in O(1) the moment the last vote arrives or the deadline fires.
+final class VoteTally {
+    static final int REJECTED = 0;
+    static final int RECORDED = 1;
+    // the vote that completed the phase, exactly one caller sees this
+    static final int COMPLETED = 2;
+
+    private static final long CLOSED_BIT = 1L << 62;
+    private static final long TIE_BIT = 1L << 31;
+
+    private final Map<String, Integer> seatByName;
+    private final AtomicIntegerArray counts;
+    // claimed by a voter, a claim can still be rejected if the phase closes first
+    private final AtomicIntegerArray voted;
+    // target seat + 2 of every admitted vote, 1 for an abstention, 0 when not admitted
+    private final AtomicIntegerArray targets;
+    private final int expectedVotes;
+    // closed flag and number of votes admitted
+    private final AtomicLong phase;
+    // number of admitted votes whose counters are fully updated
+    private final AtomicInteger applied;
+    // packed leader: votes << 32 | tie bit | seat + 1
+    private final AtomicLong leader;
+
+    VoteTally(Map<String, Integer> seatByName, int capacity, int expectedVotes) {
+        this.seatByName = seatByName;
+        this.counts = new AtomicIntegerArray(capacity);
+        this.voted = new AtomicIntegerArray(capacity);
+        this.targets = new AtomicIntegerArray(capacity);
+        this.expectedVotes = expectedVotes;
+        this.phase = new AtomicLong();
+        this.applied = new AtomicInteger();
+        this.leader = new AtomicLong();
+    }
+
+    int seatOf(String name) {
+        Integer seat = name != null ? seatByName.get(name) : null;
+        return seat != null ? seat : SeatIndex.NO_SEAT;
+    }
+
+    int vote(int voterSeat, int targetSeat) {
+        if (voterSeat == SeatIndex.NO_SEAT || !voted.compareAndSet(voterSeat, 0, 1)) {
+            return REJECTED;
+        }
+        long admitted;
+        while (true) {
+            long p = phase.get();
+            if ((p & CLOSED_BIT) != 0) {
+                return REJECTED;
+            }
+            if (phase.compareAndSet(p, p + 1)) {
+                admitted = p + 1;
+                break;
+            }
+        }
+        if (targetSeat != SeatIndex.NO_SEAT) {
+            updateLeader(targetSeat, counts.incrementAndGet(targetSeat));
+        }
+        targets.set(voterSeat, targetSeat + 2);
+        applied.incrementAndGet();
+        return admitted == expectedVotes ? COMPLETED : RECORDED;
+    }
+
+    // Counts only grow, so comparing a candidate's new count with the current maximum is enough
+    private void updateLeader(int seat, int count) {
+        while (true) {
+            long current = leader.get();
+            int maxVotes = (int) (current >>> 32);
+            int leaderSeat = (int) (current & 0x7fffffffL) - 1;
+            long next;
+            if (count > maxVotes) {
+                next = ((long) count << 32) | (seat + 1);
+            } else if (count == maxVotes && seat != leaderSeat) {
+                next = current | TIE_BIT;
+            } else {
+                return;
+            }
+            if (leader.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Stops admitting votes and waits for votes already admitted to finish counting
+    void close() {
+        while (true) {
+            long p = phase.get();
+            if ((p & CLOSED_BIT) != 0 || phase.compareAndSet(p, p | CLOSED_BIT)) {
+                break;
+            }
+        }
+        int admitted = (int) (phase.get() & ~CLOSED_BIT);
+        while (applied.get() < admitted) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Once close() has returned this covers exactly the votes that count
+    boolean hasVoted(int seat) {
+        return targets.get(seat) != 0;
+    }
+
+    // Who an admitted vote went to, NO_SEAT for an abstention
+    int targetOf(int seat) {
+        return targets.get(seat) - 2;
+    }
+
+    int votesFor(int seat) {
+        return counts.get(seat);
+    }
+
+    int votesCast() {
+        return (int) (phase.get() & ~CLOSED_BIT);
+    }
+
+    // Seat with strictly the most votes, NO_SEAT on a tie or when nobody was voted for
+    int leader() {
+        long current = leader.get();
+        if ((current >>> 32) == 0 || (current & TIE_BIT) != 0) {
+            return SeatIndex.NO_SEAT;
+        }
+        return (int) (current & 0x7fffffffL) - 1;
+    }
+
+    boolean isTie() {
+        long current = leader.get();
+        return (current >>> 32) == 0 || (current & TIE_BIT) != 0;
+    }
+}
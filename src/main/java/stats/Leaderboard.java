@@ -0,0 +1,271 @@
+package stats;
+
+import common.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Players ordered by rating in an order-statistic treap. Every node knows the size of its
+// subtree, so a player's rank and the row at any offset are found on the way down:
+// a finished game is O(log n) per player and a page is O(log n + page size).
+//
+// Ratings are Elo style: the imposter plays against the crew's average rating, every crew
+// member plays against the imposter.
+public class Leaderboard {
+    public static final int START_RATING = 1000;
+    private static final double IMPOSTER_K = 32;
+    private static final double CREW_K = 16;
+
+    private final ReentrantLock lock;
+    private final Map<String, Node> nodes;
+    private Node root;
+
+    public Leaderboard() {
+        this.lock = new ReentrantLock();
+        this.nodes = new HashMap<>();
+    }
+
+    public void record(MatchResult result) {
+        lock.lock();
+        try {
+            double crewTotal = 0;
+            int crewCount = 0;
+            for (String player : result.players()) {
+                if (!player.equals(result.imposter())) {
+                    crewTotal += ratingOf(player);
+                    crewCount++;
+                }
+            }
+            if (crewCount == 0) {
+                return;
+            }
+            double imposterRating = ratingOf(result.imposter());
+            double crewRating = crewTotal / crewCount;
+            double imposterScore = result.imposterCaught() ? 0 : 1;
+            for (String player : result.players()) {
+                double rating = ratingOf(player);
+                double next;
+                if (player.equals(result.imposter())) {
+                    next = rating + IMPOSTER_K * (imposterScore - expected(rating, crewRating));
+                } else {
+                    next = rating + CREW_K * ((1 - imposterScore) - expected(rating, imposterRating));
+                }
+                update(player, next);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rows starting at offset (0 based) in rating order
+    public List<LeaderboardEntry> page(int offset, int limit) {
+        lock.lock();
+        try {
+            List<LeaderboardEntry> rows = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            collect(root, offset, limit, 0, rows);
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // null for a player who hasn't finished a game yet
+    public LeaderboardEntry rankOf(String playerName) {
+        lock.lock();
+        try {
+            Node node = nodes.get(playerName);
+            if (node == null) {
+                return null;
+            }
+            return entry(node, countBefore(node.rating, node.name) + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size(root);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sets a rating directly, for tests and tools, games played goes up by one like after a match
+    void put(String player, double rating) {
+        lock.lock();
+        try {
+            update(player, rating);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double ratingOf(String player) {
+        Node node = nodes.get(player);
+        return node != null ? node.rating : START_RATING;
+    }
+
+    private static double expected(double rating, double opponent) {
+        return 1 / (1 + Math.pow(10, (opponent - rating) / 400));
+    }
+
+    // Re-keys a player, the node leaves the tree and comes back at its new position
+    private void update(String player, double rating) {
+        Node node = nodes.get(player);
+        int games = 0;
+        if (node != null) {
+            root = remove(root, node.rating, node.name);
+            games = node.games;
+        }
+        Node next = new Node(player, rating, games + 1);
+        nodes.put(player, next);
+        root = insert(root, next);
+    }
+
+    // Order: higher rating first, then name
+    private static int compare(double rating, String name, Node node) {
+        int byRating = Double.compare(node.rating, rating);
+        return byRating != 0 ? byRating : name.compareTo(node.name);
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            Node[] parts = split(tree, node.rating, node.name);
+            node.left = parts[0];
+            node.right = parts[1];
+            return node.update();
+        }
+        if (compare(node.rating, node.name, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return tree.update();
+    }
+
+    private static Node remove(Node tree, double rating, String name) {
+        if (tree == null) {
+            return null;
+        }
+        int c = compare(rating, name, tree);
+        if (c == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (c < 0) {
+            tree.left = remove(tree.left, rating, name);
+        } else {
+            tree.right = remove(tree.right, rating, name);
+        }
+        return tree.update();
+    }
+
+    // left gets everything ordered before the key, right the rest
+    private static Node[] split(Node tree, double rating, String name) {
+        if (tree == null) {
+            return new Node[2];
+        }
+        if (compare(rating, name, tree) > 0) {
+            Node[] parts = split(tree.right, rating, name);
+            tree.right = parts[0];
+            parts[0] = tree.update();
+            return parts;
+        }
+        Node[] parts = split(tree.left, rating, name);
+        tree.left = parts[1];
+        parts[1] = tree.update();
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private int countBefore(double rating, String name) {
+        int count = 0;
+        Node tree = root;
+        while (tree != null) {
+            int c = compare(rating, name, tree);
+            if (c == 0) {
+                return count + size(tree.left);
+            }
+            if (c < 0) {
+                tree = tree.left;
+            } else {
+                count += size(tree.left) + 1;
+                tree = tree.right;
+            }
+        }
+        return count;
+    }
+
+    // In-order walk that skips whole subtrees before offset, returns how many rows are still wanted
+    private int collect(Node tree, int offset, int limit, int before, List<LeaderboardEntry> rows) {
+        if (tree == null || limit <= 0) {
+            return limit;
+        }
+        int leftSize = size(tree.left);
+        if (offset < before + leftSize) {
+            limit = collect(tree.left, offset, limit, before, rows);
+        }
+        int index = before + leftSize;
+        if (limit > 0 && index >= offset) {
+            rows.add(entry(tree, index + 1));
+            limit--;
+        }
+        if (limit > 0) {
+            limit = collect(tree.right, offset, limit, index + 1, rows);
+        }
+        return limit;
+    }
+
+    private static LeaderboardEntry entry(Node node, int rank) {
+        return new LeaderboardEntry(rank, node.name, (int) Math.round(node.rating), node.games);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static final class Node {
+        private final String name;
+        private final double rating;
+        private final int games;
+        private final int priority;
+        private int size;
+        private Node left;
+        private Node right;
+
+        Node(String name, double rating, int games) {
+            this.name = name;
+            this.rating = rating;
+            this.games = games;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.size = 1;
+        }
+
+        Node update() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+            return this;
+        }
+    }
+}
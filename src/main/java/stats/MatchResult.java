@@ -0,0 +1,12 @@
+package stats;
+
+import java.util.List;
+
+// Outcome of one finished match, mostVoted is null when nobody was voted out
+public record MatchResult(long endedAt, List<String> players, String imposter, String mostVoted,
+                          boolean tie, boolean imposterCaught) {
+
+    public MatchResult {
+        players = List.copyOf(players);
+    }
+}
@@ -0,0 +1,395 @@
+package stats;
+
+import common.PlayerStats;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// History of finished matches. On disk every match is one fixed-width record and player
+// names live once in a dictionary file, in memory the store keeps running totals per
+// player and the end time of every match in order. Stats for a player are a lookup,
+// a time range is a binary search, however many matches there are.
+public class MatchStore {
+    // long ended, byte player count, byte flags, short unused, int imposter, int most voted, int players[6]
+    static final int RECORD_BYTES = 44;
+    static final int MAX_PLAYERS = 6;
+    private static final int FLAG_CAUGHT = 1;
+    private static final int FLAG_TIE = 2;
+    private static final String MATCHES = "matches.dat";
+    private static final String NAMES = "names.txt";
+
+    private final Path directory;
+    private final ReentrantLock lock;
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+    // per player id totals
+    private int[] played;
+    private int[] wins;
+    private int[] imposterGames;
+    private int[] caught;
+    private int[] crewGames;
+    private int[] catches;
+    // end time of match i, matches are stored in the order they ended
+    private long[] endTimes;
+    private int matchCount;
+    private final ExecutorService writer;
+    private FileChannel matchFile;
+    private FileChannel nameFile;
+
+    private MatchStore(Path directory) throws IOException {
+        this.directory = directory;
+        this.lock = new ReentrantLock();
+        this.ids = new HashMap<>();
+        this.names = new ArrayList<>();
+        this.played = new int[64];
+        this.wins = new int[64];
+        this.imposterGames = new int[64];
+        this.caught = new int[64];
+        this.crewGames = new int[64];
+        this.catches = new int[64];
+        this.endTimes = new long[1024];
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "match-store");
+            t.setDaemon(true);
+            return t;
+        });
+        if (directory != null) {
+            Files.createDirectories(directory);
+            load();
+            this.matchFile = FileChannel.open(directory.resolve(MATCHES), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.nameFile = FileChannel.open(directory.resolve(NAMES), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    public static MatchStore open(Path directory) throws IOException {
+        return new MatchStore(directory);
+    }
+
+    // Keeps history in memory only
+    public static MatchStore inMemory() {
+        try {
+            return new MatchStore(null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Store in -Dimposter.stats, in memory when unset or when it can't be opened
+    public static MatchStore fromSystemProperties() {
+        String path = System.getProperty("imposter.stats");
+        if (path == null) {
+            return inMemory();
+        }
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            System.err.println("Could not open match store " + path + ", keeping history in memory");
+            e.printStackTrace();
+            return inMemory();
+        }
+    }
+
+    // Counts the match right away, the disk write happens on the store's own thread
+    public void record(MatchResult result) {
+        List<String> newNames = new ArrayList<>();
+        lock.lock();
+        try {
+            int[] players = new int[Math.min(result.players().size(), MAX_PLAYERS)];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = idOf(result.players().get(i), newNames);
+            }
+            int imposter = idOf(result.imposter(), newNames);
+            int mostVoted = result.mostVoted() != null ? idOf(result.mostVoted(), newNames) : -1;
+            int flags = (result.imposterCaught() ? FLAG_CAUGHT : 0) | (result.tie() ? FLAG_TIE : 0);
+            apply(result.endedAt(), players, imposter, flags);
+            ByteBuffer record = encode(result.endedAt(), players, imposter, mostVoted, flags);
+            // queued under the lock, so writes reach the disk in the order ids were handed out
+            if (matchFile != null) {
+                writer.execute(() -> append(newNames, record));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PlayerStats getStats(String playerName) {
+        lock.lock();
+        try {
+            Integer id = ids.get(playerName);
+            if (id == null) {
+                return new PlayerStats(playerName, 0, 0, 0, 0, 0, 0);
+            }
+            return new PlayerStats(playerName, played[id], wins[id], imposterGames[id], caught[id],
+                    crewGames[id], catches[id]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of matches that ended in [from, to)
+    public int countMatches(long from, long to) {
+        lock.lock();
+        try {
+            return Math.max(0, lowerBound(to) - lowerBound(from));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMatchCount() {
+        lock.lock();
+        try {
+            return matchCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Names of everybody who has finished a match, in the order they were first seen
+    public List<String> getPlayerNames() {
+        lock.lock();
+        try {
+            return List.copyOf(names);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hands every stored match to the consumer in the order they ended, meant for
+    // rebuilding derived views at startup before new matches are recorded
+    public void replay(Consumer<MatchResult> consumer) {
+        if (directory == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            scan((endedAt, players, imposter, mostVoted, flags) -> {
+                List<String> playerNames = new ArrayList<>(players.length);
+                for (int player : players) {
+                    playerNames.add(names.get(player));
+                }
+                consumer.accept(new MatchResult(endedAt, playerNames, names.get(imposter),
+                        mostVoted >= 0 ? names.get(mostVoted) : null, (flags & FLAG_TIE) != 0,
+                        (flags & FLAG_CAUGHT) != 0));
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+            if (matchFile != null) {
+                matchFile.close();
+                nameFile.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int idOf(String name, List<String> newNames) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int next = names.size();
+        ids.put(name, next);
+        names.add(name);
+        newNames.add(name);
+        if (next == played.length) {
+            int size = next * 2;
+            played = Arrays.copyOf(played, size);
+            wins = Arrays.copyOf(wins, size);
+            imposterGames = Arrays.copyOf(imposterGames, size);
+            caught = Arrays.copyOf(caught, size);
+            crewGames = Arrays.copyOf(crewGames, size);
+            catches = Arrays.copyOf(catches, size);
+        }
+        return next;
+    }
+
+    private void apply(long endedAt, int[] players, int imposter, int flags) {
+        boolean imposterCaught = (flags & FLAG_CAUGHT) != 0;
+        for (int player : players) {
+            played[player]++;
+            if (player == imposter) {
+                imposterGames[player]++;
+                if (imposterCaught) {
+                    caught[player]++;
+                } else {
+                    wins[player]++;
+                }
+            } else {
+                crewGames[player]++;
+                if (imposterCaught) {
+                    catches[player]++;
+                    wins[player]++;
+                }
+            }
+        }
+        if (matchCount == endTimes.length) {
+            endTimes = Arrays.copyOf(endTimes, matchCount * 2);
+        }
+        endTimes[matchCount++] = endedAt;
+    }
+
+    // First match index whose end time is >= time
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = matchCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (endTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ByteBuffer encode(long endedAt, int[] players, int imposter, int mostVoted, int flags) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        buffer.putLong(endedAt);
+        buffer.put((byte) players.length);
+        buffer.put((byte) flags);
+        buffer.putShort((short) 0);
+        buffer.putInt(imposter);
+        buffer.putInt(mostVoted);
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            buffer.putInt(i < players.length ? players[i] : -1);
+        }
+        return buffer.flip();
+    }
+
+    private void append(List<String> newNames, ByteBuffer record) {
+        try {
+            // names first, so a record never points at a name that isn't on disk
+            if (!newNames.isEmpty()) {
+                StringBuilder lines = new StringBuilder();
+                for (String name : newNames) {
+                    // the line number is the id, a line break inside a name would shift every later one
+                    lines.append(name.replace('\n', ' ').replace('\r', ' ')).append('\n');
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    nameFile.write(bytes);
+                }
+            }
+            while (record.hasRemaining()) {
+                matchFile.write(record);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void load() throws IOException {
+        Path namePath = directory.resolve(NAMES);
+        if (Files.exists(namePath)) {
+            try (BufferedReader reader = Files.newBufferedReader(namePath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    idOf(line, new ArrayList<>());
+                }
+            }
+        }
+        Path matchPath = directory.resolve(MATCHES);
+        long complete = scan((endedAt, players, imposter, mostVoted, flags) -> apply(endedAt, players, imposter, flags));
+        // a torn record at the end is dropped
+        if (complete >= 0 && complete != Files.size(matchPath)) {
+            try (FileChannel truncate = FileChannel.open(matchPath, StandardOpenOption.WRITE)) {
+                truncate.truncate(complete);
+            }
+        }
+    }
+
+    // Reads every complete record in order, returns the length they cover or -1 without a file
+    private long scan(RecordVisitor visitor) throws IOException {
+        Path matchPath = directory.resolve(MATCHES);
+        if (!Files.exists(matchPath)) {
+            return -1;
+        }
+        int skipped = 0;
+        try (FileChannel channel = FileChannel.open(matchPath, StandardOpenOption.READ)) {
+            long complete = channel.size() / RECORD_BYTES * RECORD_BYTES;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 4096);
+            long position = 0;
+            while (position < complete) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+                while (buffer.hasRemaining()) {
+                    position += channel.read(buffer, position);
+                }
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    long endedAt = buffer.getLong();
+                    int count = buffer.get();
+                    int flags = buffer.get();
+                    buffer.getShort();
+                    int imposter = buffer.getInt();
+                    int mostVoted = buffer.getInt();
+                    int[] players = new int[Math.max(0, Math.min(count, MAX_PLAYERS))];
+                    for (int i = 0; i < MAX_PLAYERS; i++) {
+                        int id = buffer.getInt();
+                        if (i < players.length) {
+                            players[i] = id;
+                        }
+                    }
+                    if (references(count, players, imposter, mostVoted)) {
+                        visitor.visit(endedAt, players, imposter, mostVoted, flags);
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+            if (skipped > 0) {
+                System.err.println("Skipped " + skipped + " match records naming unknown players");
+            }
+            return complete;
+        }
+    }
+
+    // A record written ahead of its names, or garbage, must not take the store down
+    private boolean references(int count, int[] players, int imposter, int mostVoted) {
+        if (count < 0 || count > MAX_PLAYERS || imposter < 0 || imposter >= names.size()
+                || mostVoted < -1 || mostVoted >= names.size()) {
+            return false;
+        }
+        for (int player : players) {
+            if (player < 0 || player >= names.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface RecordVisitor {
+        void visit(long endedAt, int[] players, int imposter, int mostVoted, int flags);
+    }
+}
@@ -0,0 +1,373 @@
+package transport;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import common.LeaderboardEntry;
+import common.PlayerStats;
+import common.PlayerView;
+import common.RoomPage;
+import common.RoomSummary;
+import common.RosterSnapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact tagged binary encoding for everything that crosses GameInterface and
+// GameClientInterface: one tag byte per value, then a fixed layout for that type.
+// Decoding never trusts the peer: counts, ordinals, nesting and element types are checked
+// against the frame and anything off is an IOException, never a runtime exception.
+final class Codec {
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte STRING = 5;
+    private static final byte LIST = 6;
+    private static final byte STATE = 7;
+    private static final byte PLAYER_VIEW = 8;
+    private static final byte EVENT = 9;
+    private static final byte ROSTER = 11;
+    private static final byte STATS = 12;
+    private static final byte RANK = 13;
+    private static final byte ROOM_SUMMARY = 14;
+    private static final byte ROOM_PAGE = 15;
+    // stands in for the caller's GameClientInterface, the server binds it to the connection
+    private static final byte CALLBACK = 10;
+
+    // event kinds
+    private static final byte STATE_CHANGED = 1;
+    private static final byte CHAT = 2;
+    private static final byte YOUR_TURN = 3;
+    private static final byte WORD_ASSIGNED = 4;
+    private static final byte VOTING_DEADLINE = 5;
+    private static final byte VOTE_RECORDED = 6;
+    private static final byte VOTING_RESULT = 7;
+    private static final byte ROSTER_RESET = 8;
+    private static final byte PLAYER_JOINED = 9;
+    private static final byte PLAYER_LEFT = 10;
+    private static final byte PLAYER_UPDATED = 11;
+    private static final byte ROOM_ASSIGNED = 12;
+    private static final byte LOBBY_CHANGED = 13;
+
+    // well formed values nest at most three deep, a room list inside an event inside a batch
+    private static final int MAX_DEPTH = 4;
+    private static final GameState[] STATES = GameState.values();
+
+    // Marker decoded in place of a callback argument
+    static final Object CALLBACK_REF = new Object();
+
+    private Codec() {
+    }
+
+    static void write(DataOutput out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case Boolean b -> out.writeByte(b ? TRUE : FALSE);
+            case Integer i -> {
+                out.writeByte(INT);
+                out.writeInt(i);
+            }
+            case Long l -> {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case String s -> {
+                out.writeByte(STRING);
+                out.writeUTF(s);
+            }
+            case GameState state -> {
+                out.writeByte(STATE);
+                out.writeByte(state.ordinal());
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    write(out, element);
+                }
+            }
+            case PlayerView p -> {
+                out.writeByte(PLAYER_VIEW);
+                out.writeUTF(p.getName());
+                out.writeByte((p.isConnected() ? 1 : 0) | (p.hasVoted() ? 2 : 0));
+                out.writeShort(p.getVotes());
+            }
+            case RosterSnapshot r -> {
+                out.writeByte(ROSTER);
+                out.writeLong(r.version());
+                out.writeLong(r.deltaVersion());
+                write(out, r.players());
+            }
+            case PlayerStats p -> {
+                out.writeByte(STATS);
+                out.writeUTF(p.playerName());
+                out.writeInt(p.gamesPlayed());
+                out.writeInt(p.wins());
+                out.writeInt(p.imposterGames());
+                out.writeInt(p.timesCaught());
+                out.writeInt(p.crewGames());
+                out.writeInt(p.imposterCatches());
+            }
+            case LeaderboardEntry e -> {
+                out.writeByte(RANK);
+                out.writeInt(e.rank());
+                out.writeUTF(e.playerName());
+                out.writeInt(e.rating());
+                out.writeInt(e.gamesPlayed());
+            }
+            case RoomSummary r -> {
+                out.writeByte(ROOM_SUMMARY);
+                out.writeUTF(r.roomId());
+                out.writeByte(r.playerCount());
+                out.writeByte(r.capacity());
+                out.writeByte(r.state().ordinal());
+            }
+            case RoomPage p -> {
+                out.writeByte(ROOM_PAGE);
+                out.writeLong(p.version());
+                out.writeInt(p.total());
+                write(out, p.rooms());
+            }
+            case GameEvent event -> {
+                out.writeByte(EVENT);
+                writeEvent(out, event);
+            }
+            case GameClientInterface c -> out.writeByte(CALLBACK);
+            default -> throw new IOException("Cannot encode " + value.getClass().getName());
+        }
+    }
+
+    static Object read(DataInputStream in) throws IOException {
+        return read(in, 0);
+    }
+
+    private static Object read(DataInputStream in, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Value nested too deep");
+        }
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case STRING:
+                return in.readUTF();
+            case STATE:
+                return readState(in);
+            case LIST: {
+                // every element takes at least its tag byte
+                int size = readCount(in, 1);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in, depth + 1));
+                }
+                return list;
+            }
+            case PLAYER_VIEW: {
+                String name = in.readUTF();
+                int flags = in.readByte();
+                return new PlayerView(name, (flags & 1) != 0, (flags & 2) != 0, in.readShort());
+            }
+            case EVENT:
+                return readEvent(in, depth);
+            case STATS:
+                return new PlayerStats(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt());
+            case RANK:
+                return new LeaderboardEntry(in.readInt(), in.readUTF(), in.readInt(), in.readInt());
+            case ROOM_SUMMARY:
+                return new RoomSummary(in.readUTF(), in.readUnsignedByte(), in.readUnsignedByte(), readState(in));
+            case ROOM_PAGE: {
+                long version = in.readLong();
+                int total = in.readInt();
+                return new RoomPage(version, total, readList(in, depth + 1, RoomSummary.class));
+            }
+            case ROSTER: {
+                long version = in.readLong();
+                long deltaVersion = in.readLong();
+                return new RosterSnapshot(version, deltaVersion, readList(in, depth + 1, PlayerView.class));
+            }
+            case CALLBACK:
+                return CALLBACK_REF;
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    // Batch of events pushed to a client
+    static List<GameEvent> readEvents(DataInputStream in) throws IOException {
+        return readList(in, 0, GameEvent.class);
+    }
+
+    // Reads a value that has to be a list of non null elements of one type
+    private static <T> List<T> readList(DataInputStream in, int depth, Class<T> type) throws IOException {
+        if (!(read(in, depth) instanceof List<?> list)) {
+            throw new IOException("Expected a list of " + type.getSimpleName());
+        }
+        for (Object element : list) {
+            if (!type.isInstance(element)) {
+                throw new IOException("Unexpected list element " + element);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<T> typed = (List<T>) list;
+        return typed;
+    }
+
+    // Element count that has to fit in what is left of the frame at minBytes per element
+    private static int readCount(DataInputStream in, int minBytes) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / minBytes) {
+            throw new IOException("Bad element count " + count);
+        }
+        return count;
+    }
+
+    private static GameState readState(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= STATES.length) {
+            throw new IOException("Bad game state " + ordinal);
+        }
+        return STATES[ordinal];
+    }
+
+    private static void writeEvent(DataOutput out, GameEvent event) throws IOException {
+        switch (event) {
+            case GameEvent.StateChanged e -> {
+                out.writeByte(STATE_CHANGED);
+                out.writeByte(e.state().ordinal());
+            }
+            case GameEvent.Chat e -> {
+                out.writeByte(CHAT);
+                out.writeUTF(e.playerName());
+                out.writeUTF(e.message());
+            }
+            case GameEvent.YourTurn e -> {
+                out.writeByte(YOUR_TURN);
+                out.writeBoolean(e.yourTurn());
+                out.writeLong(e.deadline());
+            }
+            case GameEvent.WordAssigned e -> {
+                out.writeByte(WORD_ASSIGNED);
+                writeString(out, e.word());
+                out.writeBoolean(e.imposter());
+                writeString(out, e.hint());
+            }
+            case GameEvent.VotingDeadline e -> {
+                out.writeByte(VOTING_DEADLINE);
+                out.writeLong(e.deadline());
+                out.writeInt(e.durationSeconds());
+            }
+            case GameEvent.VoteRecorded e -> out.writeByte(VOTE_RECORDED);
+            case GameEvent.VotingResult e -> {
+                out.writeByte(VOTING_RESULT);
+                writeString(out, e.imposter());
+                out.writeBoolean(e.won());
+                writeString(out, e.resultMessage());
+            }
+            case GameEvent.RoomAssigned e -> {
+                out.writeByte(ROOM_ASSIGNED);
+                out.writeUTF(e.roomId());
+            }
+            case GameEvent.LobbyChanged e -> {
+                out.writeByte(LOBBY_CHANGED);
+                out.writeLong(e.version());
+                write(out, e.updated());
+                write(out, e.removed());
+            }
+            case GameEvent.RosterReset e -> {
+                out.writeByte(ROSTER_RESET);
+                out.writeLong(e.version());
+                out.writeInt(e.playerNames().size());
+                for (String name : e.playerNames()) {
+                    out.writeUTF(name);
+                }
+            }
+            case GameEvent.PlayerJoined e -> {
+                out.writeByte(PLAYER_JOINED);
+                out.writeLong(e.version());
+                out.writeUTF(e.playerName());
+            }
+            case GameEvent.PlayerLeft e -> {
+                out.writeByte(PLAYER_LEFT);
+                out.writeLong(e.version());
+                out.writeUTF(e.playerName());
+            }
+            case GameEvent.PlayerUpdated e -> {
+                out.writeByte(PLAYER_UPDATED);
+                out.writeLong(e.version());
+                out.writeUTF(e.playerName());
+                out.writeBoolean(e.voted());
+            }
+        }
+    }
+
+    private static GameEvent readEvent(DataInputStream in, int depth) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case STATE_CHANGED:
+                return new GameEvent.StateChanged(readState(in));
+            case CHAT:
+                return new GameEvent.Chat(in.readUTF(), in.readUTF());
+            case YOUR_TURN:
+                return new GameEvent.YourTurn(in.readBoolean(), in.readLong());
+            case WORD_ASSIGNED:
+                return new GameEvent.WordAssigned(readString(in), in.readBoolean(), readString(in));
+            case VOTING_DEADLINE:
+                return new GameEvent.VotingDeadline(in.readLong(), in.readInt());
+            case VOTE_RECORDED:
+                return new GameEvent.VoteRecorded();
+            case VOTING_RESULT:
+                return new GameEvent.VotingResult(readString(in), in.readBoolean(), readString(in));
+            case ROOM_ASSIGNED:
+                return new GameEvent.RoomAssigned(in.readUTF());
+            case LOBBY_CHANGED: {
+                long version = in.readLong();
+                List<RoomSummary> updated = readList(in, depth + 1, RoomSummary.class);
+                List<String> removed = readList(in, depth + 1, String.class);
+                return new GameEvent.LobbyChanged(version, updated, removed);
+            }
+            case ROSTER_RESET: {
+                long version = in.readLong();
+                // a name is at least its two length bytes
+                int size = readCount(in, 2);
+                List<String> names = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    names.add(in.readUTF());
+                }
+                return new GameEvent.RosterReset(version, names);
+            }
+            case PLAYER_JOINED:
+                return new GameEvent.PlayerJoined(in.readLong(), in.readUTF());
+            case PLAYER_LEFT:
+                return new GameEvent.PlayerLeft(in.readLong(), in.readUTF());
+            case PLAYER_UPDATED:
+                return new GameEvent.PlayerUpdated(in.readLong(), in.readUTF(), in.readBoolean());
+            default:
+                throw new IOException("Unknown event kind " + kind);
+        }
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
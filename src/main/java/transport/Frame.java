@@ -0,0 +1,88 @@
+package transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Wire unit of the NIO transport: int length, byte type, int call id, then the body.
+// Calls and their replies share an id so many calls can be in flight on one socket,
+// pushed events use id 0.
+record Frame(byte type, int id, byte[] body) {
+    static final byte CALL = 1;
+    static final byte REPLY = 2;
+    static final byte ERROR = 3;
+    static final byte EVENTS = 4;
+
+    static final int HEADER = 4;
+    static final int MAX_LENGTH = 1 << 20;
+
+    static ByteBuffer call(int id, String method, Object[] args) throws IOException {
+        ByteArrayOutputStream bytes = start(CALL, id);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(method);
+        int count = args != null ? args.length : 0;
+        out.writeByte(count);
+        for (int i = 0; i < count; i++) {
+            Codec.write(out, args[i]);
+        }
+        return finish(bytes);
+    }
+
+    static ByteBuffer value(byte type, int id, Object value) throws IOException {
+        ByteArrayOutputStream bytes = start(type, id);
+        Codec.write(new DataOutputStream(bytes), value);
+        return finish(bytes);
+    }
+
+    static ByteBuffer error(int id, String message) throws IOException {
+        ByteArrayOutputStream bytes = start(ERROR, id);
+        new DataOutputStream(bytes).writeUTF(message != null ? message : "error");
+        return finish(bytes);
+    }
+
+    // Takes the next complete frame off a buffer in read mode, null if it isn't all there yet
+    static Frame poll(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < 5 || length > MAX_LENGTH) {
+            throw new IOException("Bad frame length " + length);
+        }
+        if (buffer.remaining() < HEADER + length) {
+            return null;
+        }
+        buffer.position(buffer.position() + HEADER);
+        byte type = buffer.get();
+        int id = buffer.getInt();
+        byte[] body = new byte[length - 5];
+        buffer.get(body);
+        return new Frame(type, id, body);
+    }
+
+    DataInputStream in() {
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    private static ByteArrayOutputStream start(byte type, int id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeInt(id);
+        return bytes;
+    }
+
+    private static ByteBuffer finish(ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buffer.capacity() - HEADER;
+        if (length > MAX_LENGTH) {
+            throw new IOException("Frame too large: " + length);
+        }
+        buffer.putInt(0, length);
+        return buffer;
+    }
+}
@@ -0,0 +1,193 @@
+package transport;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameInterface;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Client end of the NIO transport. connect returns a GameInterface proxy, every call is a
+// frame with its own id so calls from several threads share the one socket, and the
+// GameClientInterface passed to the server receives pushed events over the same socket.
+public class NioClient implements InvocationHandler {
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+
+    private final SocketChannel channel;
+    private final Map<Integer, CompletableFuture<Object>> inFlight;
+    private final AtomicInteger nextId;
+    private final ReentrantLock writeLock;
+    // events are handed to the callback in order, off the reader so callbacks may call the server
+    private final ExecutorService events;
+    private volatile GameClientInterface callback;
+    private volatile boolean closed;
+
+    private NioClient(SocketChannel channel) {
+        this.channel = channel;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.nextId = new AtomicInteger();
+        this.writeLock = new ReentrantLock();
+        this.events = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "nio-events");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static GameInterface connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        NioClient client = new NioClient(channel);
+        Thread reader = new Thread(client::readLoop, "nio-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return (GameInterface) Proxy.newProxyInstance(GameInterface.class.getClassLoader(),
+                new Class<?>[]{GameInterface.class}, client);
+    }
+
+    // Closes the connection behind a proxy returned by connect
+    public static void close(GameInterface proxy) {
+        if (Proxy.isProxyClass(proxy.getClass()) && Proxy.getInvocationHandler(proxy) instanceof NioClient client) {
+            client.close();
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "NioClient[" + channel + "]";
+            };
+        }
+        if (closed) {
+            throw new RemoteException("Connection closed");
+        }
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof GameClientInterface c) {
+                    callback = c;
+                }
+            }
+        }
+        int id = nextId.incrementAndGet();
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        inFlight.put(id, reply);
+        try {
+            write(Frame.call(id, method.getName(), args));
+            return reply.get(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (IOException | TimeoutException e) {
+            throw new RemoteException("Call " + method.getName() + " failed", e);
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    private void write(ByteBuffer frame) throws IOException {
+        writeLock.lock();
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                Frame frame;
+                while ((frame = Frame.poll(buffer)) != null) {
+                    handle(frame);
+                }
+                if (buffer.remaining() >= Frame.HEADER) {
+                    int needed = Frame.HEADER + buffer.getInt(buffer.position());
+                    if (needed > buffer.capacity()) {
+                        ByteBuffer bigger = ByteBuffer.allocate(needed);
+                        bigger.put(buffer);
+                        buffer = bigger;
+                        continue;
+                    }
+                }
+                buffer.compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                e.printStackTrace();
+            }
+        }
+        close();
+    }
+
+    private void handle(Frame frame) throws IOException {
+        switch (frame.type()) {
+            case Frame.REPLY -> complete(frame.id(), Codec.read(frame.in()), null);
+            case Frame.ERROR -> complete(frame.id(), null, new RemoteException(frame.in().readUTF()));
+            case Frame.EVENTS -> {
+                List<GameEvent> batch = Codec.readEvents(frame.in());
+                GameClientInterface target = callback;
+                if (target != null) {
+                    events.execute(() -> {
+                        try {
+                            target.onEvents(batch);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    });
+                }
+            }
+            default -> throw new IOException("Unexpected frame type " + frame.type());
+        }
+    }
+
+    private void complete(int id, Object value, Throwable error) {
+        CompletableFuture<Object> reply = inFlight.get(id);
+        if (reply == null) {
+            return;
+        }
+        if (error != null) {
+            reply.completeExceptionally(error);
+        } else {
+            reply.complete(value);
+        }
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        for (CompletableFuture<Object> reply : inFlight.values()) {
+            reply.completeExceptionally(new RemoteException("Connection closed"));
+        }
+        events.shutdown();
+    }
+}
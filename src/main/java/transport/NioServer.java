@@ -0,0 +1,328 @@
+package transport;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameInterface;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves a GameInterface over plain sockets. One selector thread owns every connection,
+// calls are decoded there and run on virtual threads, replies and pushed events go back
+// on the same socket. Clients need no listening port of their own, so NAT is no problem.
+public class NioServer {
+    public static final int DEFAULT_PORT = 7099;
+    private static final int READ_BUFFER = 16 * 1024;
+
+    private final GameInterface target;
+    private final Map<String, Method> methods;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService dispatcher;
+    // connections with new outgoing frames, picked up by the selector thread
+    private final Queue<Connection> writeReady;
+    private final AtomicInteger connectionCount;
+    private final Thread selectorThread;
+    private volatile boolean running;
+
+    public NioServer(GameInterface target, int port) throws IOException {
+        this.target = target;
+        this.methods = new HashMap<>();
+        for (Method m : GameInterface.class.getMethods()) {
+            methods.put(m.getName(), m);
+        }
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("nio-call-", 0).factory());
+        this.writeReady = new ConcurrentLinkedQueue<>();
+        this.connectionCount = new AtomicInteger();
+        this.selectorThread = new Thread(this::run, "nio-selector");
+        this.selectorThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        dispatcher.shutdownNow();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Connection ready;
+                while ((ready = writeReady.poll()) != null) {
+                    ready.enableWrite();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // a broken or hostile peer only costs its own connection
+                        connection.close();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        closeAll();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                connection.close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final Queue<Outgoing> writes;
+        private final AtomicBoolean writeScheduled;
+        private final Callback callback;
+        private SelectionKey key;
+        private ByteBuffer readBuffer;
+        private volatile boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.writes = new ConcurrentLinkedQueue<>();
+            this.writeScheduled = new AtomicBoolean();
+            this.callback = new Callback(this);
+            this.readBuffer = ByteBuffer.allocate(READ_BUFFER);
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new ClosedChannelException();
+            }
+            readBuffer.flip();
+            Frame frame;
+            while ((frame = Frame.poll(readBuffer)) != null) {
+                if (frame.type() == Frame.CALL) {
+                    dispatch(frame);
+                }
+            }
+            // make room for a frame bigger than the buffer
+            if (readBuffer.remaining() >= Frame.HEADER) {
+                int needed = Frame.HEADER + readBuffer.getInt(readBuffer.position());
+                if (needed > readBuffer.capacity()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(needed);
+                    bigger.put(readBuffer);
+                    readBuffer = bigger;
+                    return;
+                }
+            }
+            readBuffer.compact();
+        }
+
+        private void dispatch(Frame frame) throws IOException {
+            int id = frame.id();
+            DataInputStream in = frame.in();
+            Method method = methods.get(in.readUTF());
+            int count = in.readUnsignedByte();
+            if (count > in.available()) {
+                throw new IOException("Bad argument count " + count);
+            }
+            Object[] args = new Object[count];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = Codec.read(in);
+                if (args[i] == Codec.CALLBACK_REF) {
+                    args[i] = callback;
+                    // the string argument before the callback is the player name
+                    if (i > 0 && args[i - 1] instanceof String name) {
+                        callback.playerName = name;
+                    }
+                }
+            }
+            dispatcher.execute(() -> invoke(id, method, args));
+        }
+
+        private void invoke(int id, Method method, Object[] args) {
+            try {
+                if (method == null) {
+                    send(Frame.error(id, "Unknown method"));
+                    return;
+                }
+                Object result = method.invoke(target, args);
+                send(Frame.value(Frame.REPLY, id, result));
+            } catch (InvocationTargetException e) {
+                sendError(id, e.getCause());
+            } catch (Exception e) {
+                sendError(id, e);
+            }
+        }
+
+        private void sendError(int id, Throwable cause) {
+            try {
+                send(Frame.error(id, cause.getMessage()));
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // Safe from any thread, completes once the frame is fully on the socket
+        CompletableFuture<Void> send(ByteBuffer frame) {
+            Outgoing outgoing = new Outgoing(frame, new CompletableFuture<>());
+            if (closed) {
+                outgoing.done.completeExceptionally(new ClosedChannelException());
+                return outgoing.done;
+            }
+            writes.add(outgoing);
+            if (writeScheduled.compareAndSet(false, true)) {
+                writeReady.add(this);
+                selector.wakeup();
+            }
+            return outgoing.done;
+        }
+
+        void enableWrite() {
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void write() throws IOException {
+            Outgoing head;
+            while ((head = writes.peek()) != null) {
+                channel.write(head.buffer);
+                if (head.buffer.hasRemaining()) {
+                    // socket buffer full, wait for the next writable event
+                    return;
+                }
+                writes.poll();
+                head.done.complete(null);
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            writeScheduled.set(false);
+            // a frame may have been queued after the last peek
+            if (!writes.isEmpty() && writeScheduled.compareAndSet(false, true)) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connectionCount.decrementAndGet();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+            Outgoing outgoing;
+            while ((outgoing = writes.poll()) != null) {
+                outgoing.done.completeExceptionally(new ClosedChannelException());
+            }
+        }
+    }
+
+    // Server side stand-in for the remote client, events go out as frames on its connection
+    private static final class Callback implements GameClientInterface {
+        private final Connection connection;
+        private volatile String playerName;
+
+        Callback(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void onEvents(List<GameEvent> events) throws RemoteException {
+            try {
+                // blocks this virtual thread until written, so the broadcaster still sees a slow socket as a slow client
+                connection.send(Frame.value(Frame.EVENTS, 0, events)).get();
+            } catch (IOException | ExecutionException e) {
+                throw new RemoteException("Connection lost", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteException("Interrupted", e);
+            }
+        }
+
+        @Override
+        public String getPlayerName() {
+            return playerName;
+        }
+    }
+
+    private record Outgoing(ByteBuffer buffer, CompletableFuture<Void> done) {
+    }
+}
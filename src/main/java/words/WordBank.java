@@ -0,0 +1,173 @@
+package words;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only view over a compiled word bank. The file is memory mapped and entries are
+// decoded only when drawn, so a dictionary of millions of words costs one offset table
+// in the page cache rather than millions of objects on the heap. Opening walks every
+// record once to reject a truncated or corrupt file before any room draws from it.
+//
+// Layout, all big endian:
+//   int magic, int format version, int entry count, int category count
+//   per category: utf name, int first entry, int entry count (entries are grouped by category)
+//   int offset per entry
+//   per entry: short category, byte difficulty, byte hint count, utf word, utf per hint
+public final class WordBank {
+    static final int MAGIC = 0x494D5057;
+    static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final ByteBuffer data;
+    private final int count;
+    private final String[] categories;
+    private final Map<String, int[]> ranges;
+    private final int offsetTable;
+    private final String source;
+
+    private WordBank(ByteBuffer data, String source) throws IOException {
+        this.data = data;
+        this.source = source;
+        // every count and offset is checked once here, entry() then never reads outside the file
+        try {
+            if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != FORMAT) {
+                throw new IOException("Not a word bank: " + source);
+            }
+            this.count = data.getInt(8);
+            int categoryCount = data.getInt(12);
+            if (count <= 0) {
+                throw new IOException("Empty word bank: " + source);
+            }
+            if (categoryCount <= 0 || categoryCount > Math.min(count, Short.MAX_VALUE)) {
+                throw corrupt("category count " + categoryCount);
+            }
+            this.categories = new String[categoryCount];
+            this.ranges = new HashMap<>();
+            ByteBuffer in = data.duplicate().position(HEADER_BYTES);
+            int next = 0;
+            for (int i = 0; i < categoryCount; i++) {
+                categories[i] = readUtf(in);
+                int first = in.getInt();
+                int size = in.getInt();
+                // categories are contiguous, in order and cover every entry exactly once
+                if (first != next || size <= 0 || size > count - first) {
+                    throw corrupt("range of category " + categories[i]);
+                }
+                if (ranges.put(categories[i], new int[]{first, size}) != null) {
+                    throw corrupt("duplicate category " + categories[i]);
+                }
+                next = first + size;
+            }
+            if (next != count) {
+                throw corrupt("categories cover " + next + " of " + count + " entries");
+            }
+            this.offsetTable = in.position();
+            if ((long) count * 4 > data.limit() - offsetTable) {
+                throw corrupt("offset table");
+            }
+            int recordsStart = offsetTable + count * 4;
+            for (int c = 0; c < categoryCount; c++) {
+                int[] range = ranges.get(categories[c]);
+                for (int i = range[0]; i < range[0] + range[1]; i++) {
+                    int offset = data.getInt(offsetTable + i * 4);
+                    if (offset < recordsStart || offset >= data.limit()) {
+                        throw corrupt("offset of entry " + i);
+                    }
+                    checkEntry(data.duplicate().position(offset), c, i);
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated word bank: " + source, e);
+        }
+    }
+
+    // Walks one record without decoding its text
+    private void checkEntry(ByteBuffer in, int category, int index) throws IOException {
+        if (in.getShort() != category) {
+            throw corrupt("category of entry " + index);
+        }
+        in.get();
+        int hintCount = in.get();
+        if (hintCount <= 0) {
+            throw corrupt("hints of entry " + index);
+        }
+        for (int i = 0; i <= hintCount; i++) {
+            int length = in.getShort() & 0xffff;
+            in.position(in.position() + length);
+        }
+    }
+
+    private IOException corrupt(String what) {
+        return new IOException("Corrupt word bank " + source + ": bad " + what);
+    }
+
+    public static WordBank open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new WordBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    // The ten original words, used when no dictionary is configured or it fails to load
+    public static WordBank builtin() {
+        String[] words = {"tower", "chalk", "school", "ice-cream", "rainbow", "sky", "storm", "carrot", "turtle", "wheel"};
+        String[] hints = {"high", "white", "kids", "cold", "colors", "blue", "dangerous", "bird", "slow", "black"};
+        List<WordEntry> entries = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            entries.add(new WordEntry(words[i], "general", 1, List.of(hints[i])));
+        }
+        try {
+            return new WordBank(WordBankCompiler.compile(entries), "builtin");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<String> getCategories() {
+        return List.of(categories);
+    }
+
+    // First entry index and entry count of a category, null if the bank doesn't have it
+    int[] range(String category) {
+        return ranges.get(category);
+    }
+
+    public WordEntry entry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        ByteBuffer in = data.duplicate().position(data.getInt(offsetTable + index * 4));
+        String category = categories[in.getShort()];
+        int difficulty = in.get();
+        int hintCount = in.get();
+        String word = readUtf(in);
+        List<String> hints = new ArrayList<>(hintCount);
+        for (int i = 0; i < hintCount; i++) {
+            hints.add(readUtf(in));
+        }
+        return new WordEntry(word, category, difficulty, hints);
+    }
+
+    private static String readUtf(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package words;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns a tab separated dictionary into the binary format WordBank maps.
+// One word per line: word, category, difficulty, hints separated by '|'. Lines starting with # are skipped.
+//
+//   java words.WordBankCompiler words.tsv words.bank
+public final class WordBankCompiler {
+
+    private WordBankCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: WordBankCompiler <input.tsv> <output.bank>");
+            System.exit(1);
+        }
+        List<WordEntry> entries = parse(Path.of(args[0]));
+        write(entries, Path.of(args[1]));
+        System.out.println("Compiled " + entries.size() + " words into " + args[1]);
+    }
+
+    public static List<WordEntry> parse(Path tsv) throws IOException {
+        List<WordEntry> entries = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(tsv, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length < 4) {
+                throw new IOException("Line " + lineNumber + ": expected word, category, difficulty and hints");
+            }
+            List<String> hints = new ArrayList<>();
+            for (String hint : fields[3].split("\\|")) {
+                if (!hint.isBlank()) {
+                    hints.add(hint.trim());
+                }
+            }
+            if (hints.isEmpty()) {
+                throw new IOException("Line " + lineNumber + ": a word needs at least one hint");
+            }
+            entries.add(new WordEntry(fields[0].trim(), fields[1].trim(), Integer.parseInt(fields[2].trim()), hints));
+        }
+        return entries;
+    }
+
+    // Writes next to the target and renames over it. A running server keeps its mapping of the
+    // old file, a reload then maps the new one, it never sees a half written bank.
+    public static void write(List<WordEntry> entries, Path bank) throws IOException {
+        ByteBuffer compiled = compile(entries);
+        Path target = bank.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, Arrays.copyOf(compiled.array(), compiled.limit()));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static ByteBuffer compile(List<WordEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            throw new IOException("No words");
+        }
+        // group by category so every category is one contiguous index range
+        Map<String, List<WordEntry>> byCategory = new LinkedHashMap<>();
+        for (WordEntry entry : entries) {
+            byCategory.computeIfAbsent(entry.category(), c -> new ArrayList<>()).add(entry);
+        }
+        if (byCategory.size() > Short.MAX_VALUE) {
+            throw new IOException("Too many categories");
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        int[] recordOffsets = new int[entries.size()];
+        int index = 0;
+        short categoryIndex = 0;
+        for (List<WordEntry> group : byCategory.values()) {
+            for (WordEntry entry : group) {
+                if (entry.hints().isEmpty()) {
+                    throw new IOException("No hints for " + entry.word());
+                }
+                recordOffsets[index++] = records.size();
+                recordOut.writeShort(categoryIndex);
+                recordOut.writeByte(entry.difficulty());
+                recordOut.writeByte(Math.min(entry.hints().size(), 127));
+                recordOut.writeShort(utf(entry.word()).length);
+                recordOut.write(utf(entry.word()));
+                for (String hint : entry.hints().subList(0, Math.min(entry.hints().size(), 127))) {
+                    recordOut.writeShort(utf(hint).length);
+                    recordOut.write(utf(hint));
+                }
+            }
+            categoryIndex++;
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(WordBank.MAGIC);
+        out.writeInt(WordBank.FORMAT);
+        out.writeInt(entries.size());
+        out.writeInt(byCategory.size());
+        int first = 0;
+        for (Map.Entry<String, List<WordEntry>> category : byCategory.entrySet()) {
+            out.writeShort(utf(category.getKey()).length);
+            out.write(utf(category.getKey()));
+            out.writeInt(first);
+            out.writeInt(category.getValue().size());
+            first += category.getValue().size();
+        }
+        int recordsStart = header.size() + entries.size() * 4;
+        for (int offset : recordOffsets) {
+            out.writeInt(recordsStart + offset);
+        }
+        records.writeTo(header);
+        return ByteBuffer.wrap(header.toByteArray());
+    }
+
+    private static byte[] utf(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IOException("Text too long: " + s.substring(0, 20));
+        }
+        return bytes;
+    }
+}
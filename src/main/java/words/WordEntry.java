@@ -0,0 +1,11 @@
+package words;
+
+import java.util.List;
+
+// One secret word with everything the imposter may get as a hint
+public record WordEntry(String word, String category, int difficulty, List<String> hints) {
+
+    public WordEntry {
+        hints = List.copyOf(hints);
+    }
+}
@@ -0,0 +1,55 @@
+package words;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Draws words for one room without repeating until the whole range has been used.
+// A Fisher-Yates shuffle where only swapped positions are remembered, so each draw is
+// O(1) and memory grows with the number of draws, not with the size of the bank.
+// Not thread safe, each room owns its own sampler.
+public final class WordSampler {
+    private final WordSource source;
+    private final String category;
+    // position to value for every position a draw has moved
+    private final Map<Integer, Integer> swapped;
+    private WordBank bank;
+    private int first;
+    private int remaining;
+
+    // category null draws from the whole bank
+    public WordSampler(WordSource source, String category) {
+        this.source = source;
+        this.category = category;
+        this.swapped = new HashMap<>();
+    }
+
+    public WordEntry next() {
+        WordBank current = source.current();
+        if (current != bank || remaining == 0) {
+            // new bank after a reload, or every word used once: start a fresh cycle
+            restart(current);
+        }
+        int pick = ThreadLocalRandom.current().nextInt(remaining);
+        int last = remaining - 1;
+        int value = swapped.getOrDefault(pick, pick);
+        // move the last unused position into the picked slot
+        swapped.put(pick, swapped.getOrDefault(last, last));
+        swapped.remove(last);
+        remaining--;
+        return bank.entry(first + value);
+    }
+
+    private void restart(WordBank current) {
+        bank = current;
+        swapped.clear();
+        int[] range = category != null ? current.range(category) : null;
+        if (range != null) {
+            first = range[0];
+            remaining = range[1];
+        } else {
+            first = 0;
+            remaining = current.size();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package words;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The server's current word bank. Reloading maps the new file and swaps the reference,
+// games already running keep the entry they drew and new draws see the new bank.
+// The file must be replaced, not rewritten in place, WordBankCompiler renames a new file over it.
+public final class WordSource {
+    private final Path file;
+    private final AtomicReference<WordBank> current;
+
+    public WordSource(Path file) {
+        this.file = file;
+        this.current = new AtomicReference<>(load(file));
+    }
+
+    // Dictionary from -Dimposter.words, or the built in words when unset
+    public static WordSource fromSystemProperties() {
+        String path = System.getProperty("imposter.words");
+        return new WordSource(path != null ? Path.of(path) : null);
+    }
+
+    public WordBank current() {
+        return current.get();
+    }
+
+    // Returns false and keeps the old bank if the file can't be read or is not a valid bank
+    public boolean reload() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            current.set(WordBank.open(file));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not reload word bank " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static WordBank load(Path file) {
+        if (file != null) {
+            try {
+                return WordBank.open(file);
+            } catch (IOException e) {
+                System.err.println("Could not load word bank " + file + ", using built in words");
+                e.printStackTrace();
+            }
+        }
+        return WordBank.builtin();
+    }
+}
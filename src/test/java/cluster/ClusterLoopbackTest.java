@@ -0,0 +1,149 @@
+package cluster;
+
+import common.DirectoryInterface;
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameInterface;
+import common.NodeInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A directory in this JVM and every game node in its own JVM, all on loopback
+class ClusterLoopbackTest {
+    private final Map<String, Process> nodes = new ConcurrentHashMap<>();
+    private Registry registry;
+    private DirectoryServer directory;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Process node : nodes.values()) {
+            node.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        }
+        if (directory != null) {
+            directory.shutdown();
+            UnicastRemoteObject.unexportObject(directory, true);
+        }
+        if (registry != null) {
+            UnicastRemoteObject.unexportObject(registry, true);
+        }
+    }
+
+    @Test
+    @Timeout(90)
+    void roomsStayOnTheirNodeWhileMembershipChanges() throws Exception {
+        int directoryPort = freePort();
+        registry = LocateRegistry.createRegistry(directoryPort);
+        directory = new DirectoryServer();
+        registry.rebind(DirectoryServer.NAME, directory);
+        DirectoryInterface remote = DirectoryServer.lookup("localhost:" + directoryPort);
+
+        NodeInfo a = startNode("a", directoryPort);
+        awaitNodes(remote, 1);
+        GameInterface nodeA = game(a);
+        List<String> rooms = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            rooms.add(nodeA.createRoom());
+        }
+        // the node reports its rooms asynchronously
+        Thread.sleep(1000);
+
+        NodeInfo b = startNode("b", directoryPort);
+        awaitNodes(remote, 2);
+        ShardRing ring = new ShardRing(List.of("a", "b"));
+        int movedByRing = 0;
+        for (String roomId : rooms) {
+            // live games are pinned, even those the new ring gives to b
+            assertEquals(a, remote.resolve(roomId), roomId);
+            movedByRing += ring.owner(roomId).equals("b") ? 1 : 0;
+        }
+        assertTrue(movedByRing > 0, "no room of the sample hashes to b, pick more rooms");
+        // new ids follow the ring and land on b's node, which really serves them
+        String fresh = roomOwnedBy(ring, "b");
+        assertEquals(b, remote.resolve(fresh));
+        GameClientInterface ann = new QuietClient("ann");
+        UnicastRemoteObject.exportObject(ann, 0);
+        try {
+            assertTrue(game(b).registerPlayer(fresh, "ann", ann));
+            assertTrue(game(b).getRoomIds().contains(fresh));
+        } finally {
+            UnicastRemoteObject.unexportObject(ann, true);
+        }
+
+        // a leaves through its shutdown hook, its ids fall back to the ring
+        nodes.remove("a").destroy();
+        awaitNodes(remote, 1);
+        for (String roomId : rooms) {
+            assertEquals(b, remote.resolve(roomId), roomId);
+        }
+    }
+
+    private NodeInfo startNode(String nodeId, int directoryPort) throws IOException {
+        int rmiPort = freePort();
+        int nioPort = freePort();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Dimposter.node=" + nodeId,
+                "-Dimposter.node.port=" + rmiPort,
+                "-Dimposter.node.nioPort=" + nioPort,
+                "-Dimposter.directory=localhost:" + directoryPort,
+                "server.GameNode")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        nodes.put(nodeId, process);
+        return new NodeInfo(nodeId, "localhost", rmiPort, nioPort);
+    }
+
+    private static GameInterface game(NodeInfo node) throws Exception {
+        return (GameInterface) LocateRegistry.getRegistry(node.host(), node.rmiPort()).lookup("ImposterGame");
+    }
+
+    private static void awaitNodes(DirectoryInterface directory, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (directory.getNodes().size() != count) {
+            assertTrue(System.currentTimeMillis() < deadline, "cluster never reached " + count + " nodes");
+            Thread.sleep(100);
+        }
+    }
+
+    private static String roomOwnedBy(ShardRing ring, String nodeId) {
+        for (int i = 0; ; i++) {
+            if (ring.owner("fresh-" + i).equals(nodeId)) {
+                return "fresh-" + i;
+            }
+        }
+    }
+
+    private record QuietClient(String name) implements GameClientInterface {
+        @Override
+        public void onEvents(List<GameEvent> events) {
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package cluster;
+
+import common.NodeInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DirectoryServerTest {
+    private static final NodeInfo A = new NodeInfo("a", "localhost", 1101, 7101);
+    private static final NodeInfo B = new NodeInfo("b", "localhost", 1102, 7102);
+
+    private final DirectoryServer directory;
+
+    DirectoryServerTest() throws RemoteException {
+        directory = new DirectoryServer();
+    }
+
+    @AfterEach
+    void tearDown() throws RemoteException {
+        directory.shutdown();
+        UnicastRemoteObject.unexportObject(directory, true);
+    }
+
+    @Test
+    void newRoomsFollowTheRing() throws RemoteException {
+        assertNull(directory.resolve("room-1"));
+        directory.join(A);
+        directory.join(B);
+        ShardRing ring = new ShardRing(List.of("a", "b"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.owner("room-" + i), directory.resolve("room-" + i).nodeId());
+        }
+    }
+
+    @Test
+    void runningRoomStaysPutWhenANodeJoins() throws RemoteException {
+        directory.join(A);
+        String roomId = roomOwnedBy(new ShardRing(List.of("a", "b")), "b");
+        directory.roomOpened("a", roomId);
+        directory.join(B);
+        assertEquals(A, directory.resolve(roomId));
+
+        directory.roomClosed("a", roomId);
+        assertEquals(B, directory.resolve(roomId));
+    }
+
+    @Test
+    void lateReportFromANodeThatNoLongerOwnsTheRoomDoesNotMoveIt() throws RemoteException {
+        directory.join(A);
+        directory.join(B);
+        String roomId = roomOwnedBy(new ShardRing(List.of("a", "b")), "b");
+        // the ring sent the room to b, a's registration from before b joined only lands now
+        directory.roomOpened("b", roomId);
+        directory.roomOpened("a", roomId);
+        assertEquals(B, directory.resolve(roomId));
+        // and a close from the wrong node leaves the pin alone
+        directory.roomClosed("a", roomId);
+        assertEquals(B, directory.resolve(roomId));
+    }
+
+    @Test
+    void roomsOfALeavingNodeGoBackToTheRing() throws RemoteException {
+        directory.join(A);
+        directory.join(B);
+        String roomId = roomOwnedBy(new ShardRing(List.of("a", "b")), "b");
+        directory.roomOpened("a", roomId);
+        directory.leave("a");
+        assertEquals(B, directory.resolve(roomId));
+
+        // a report from a node that is gone is ignored
+        directory.roomOpened("a", roomId);
+        directory.join(A);
+        assertEquals(B, directory.resolve(roomId));
+    }
+
+    private static String roomOwnedBy(ShardRing ring, String nodeId) {
+        for (int i = 0; ; i++) {
+            if (ring.owner("room-" + i).equals(nodeId)) {
+                return "room-" + i;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRingTest {
+    private static final int KEYS = 30_000;
+
+    @Test
+    void placementDependsOnMembersNotOnOrder() {
+        ShardRing ring = new ShardRing(List.of("a", "b", "c"));
+        ShardRing shuffled = ShardRing.EMPTY.with("c").with("a").with("b");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.owner("room-" + i), shuffled.owner("room-" + i));
+        }
+        assertNull(ShardRing.EMPTY.owner("room-1"));
+        assertTrue(ShardRing.EMPTY.with("a").without("a").isEmpty());
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        Map<String, Integer> counts = count(new ShardRing(List.of("a", "b", "c", "d")));
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            // within 20% of a fair share
+            assertTrue(Math.abs(entry.getValue() - KEYS / 4) < KEYS / 20, entry.toString());
+        }
+    }
+
+    @Test
+    void joiningNodeOnlyTakesKeysForItself() {
+        ShardRing before = new ShardRing(List.of("a", "b", "c"));
+        ShardRing after = before.with("d");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "room-" + i;
+            if (!before.owner(key).equals(after.owner(key))) {
+                assertEquals("d", after.owner(key), key);
+                moved++;
+            }
+        }
+        // about a quarter, nothing near a full reshuffle
+        assertTrue(moved > KEYS / 5 && moved < KEYS * 3 / 10, "moved " + moved);
+    }
+
+    @Test
+    void leavingNodeOnlyGivesUpItsOwnKeys() {
+        ShardRing before = new ShardRing(List.of("a", "b", "c", "d"));
+        ShardRing after = before.without("b");
+        for (int i = 0; i < KEYS; i++) {
+            String key = "room-" + i;
+            if (!before.owner(key).equals("b")) {
+                assertEquals(before.owner(key), after.owner(key), key);
+            } else {
+                assertTrue(after.getNodes().contains(after.owner(key)));
+            }
+        }
+    }
+
+    private static Map<String, Integer> count(ShardRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner("room-" + i), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,51 @@
+package journal;
+
+import common.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsThatCannotBeEncodedAreSkippedAlone() throws IOException {
+        EventJournal journal = EventJournal.open(directory);
+        journal.append(new JournalRecord.Started("r1", List.of("ann", "bob", "cat"), 1, "apple", "fruit"));
+        journal.append(new JournalRecord.Round("r1", 1));
+        journal.append(new JournalRecord.Chat("r1", "ann", null));
+        journal.append(new JournalRecord.Chat("r1", "ann", "x".repeat(70_000)));
+        journal.append(new JournalRecord.Chat("r1", "ann", "a clue"));
+        journal.append(new JournalRecord.Started("r2", List.of("dan", "eve", "fay"), 0, "pear", "fruit"));
+        journal.close();
+
+        Map<String, RecoveredGame> games = EventJournal.open(directory).getRecoveredGames();
+        assertEquals(2, games.size());
+        RecoveredGame r1 = games.get("r1");
+        assertEquals(GameState.ROUND_1, r1.state());
+        // only the chat that could be written moved the turn on
+        assertEquals(1, r1.turnIndex());
+        assertEquals("pear", games.get("r2").word());
+    }
+
+    @Test
+    void writerKeepsGoingAfterABadBatch() throws Exception {
+        EventJournal journal = EventJournal.open(directory);
+        journal.append(new JournalRecord.Started("r1", List.of("ann", "bob", "cat"), 1, "apple", "fruit"));
+        journal.append(new JournalRecord.Chat("r1", "ann", null));
+        // let the writer take the first batch on its own
+        Thread.sleep(200);
+        journal.append(new JournalRecord.Round("r1", 2));
+        journal.close();
+
+        assertEquals(GameState.ROUND_2, EventJournal.open(directory).getRecoveredGames().get("r1").state());
+    }
+}
@@ -0,0 +1,90 @@
+package loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void quantilesStayWithinOneBucketOfTheSortedValues() {
+        SplittableRandom random = new SplittableRandom(24);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // long tailed like real latencies, from a few microseconds to seconds
+            values[i] = (long) Math.exp(8 + random.nextDouble() * 13);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double fraction : new double[] {0.01, 0.25, 0.50, 0.90, 0.99, 0.999, 0.9999}) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            long estimate = histogram.percentile(fraction);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 16,
+                    "p" + fraction + " estimate " + estimate + " exact " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.percentile(1.0));
+        assertEquals(values[values.length - 1], histogram.max());
+        assertEquals(values.length, histogram.count());
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        assertEquals(5, histogram.percentile(0.50));
+        assertEquals(9, histogram.percentile(0.90));
+        assertEquals(10, histogram.percentile(0.99));
+        assertEquals(1, histogram.percentile(0.0));
+    }
+
+    @Test
+    void emptyHistogramAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.99));
+        histogram.record(-5);
+        assertEquals(0, histogram.percentile(0.99));
+        assertEquals(1, histogram.count());
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(Long.MAX_VALUE) >>> random.nextInt(63);
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.lowerBound(index) <= value, "value " + value);
+            assertTrue(value < LatencyHistogram.lowerBound(index + 1) || index == LatencyHistogram.index(Long.MAX_VALUE),
+                    "value " + value);
+        }
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 1; i <= 10_000; i++) {
+                    histogram.record(i * 1000L);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(80_000, histogram.count());
+        assertEquals(10_000_000, histogram.max());
+        long median = histogram.percentile(0.50);
+        assertTrue(median >= 5_000_000 && median <= 5_000_000 + 5_000_000 / 16, "median " + median);
+    }
+}
@@ -0,0 +1,129 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BroadcasterTest {
+    private final Broadcaster broadcaster = new Broadcaster(new MailboxConfig(4, 60_000));
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void fullMailboxKeepsTheNewestDeadline() throws Exception {
+        BlockingClient client = new BlockingClient();
+        AtomicInteger evictions = new AtomicInteger();
+        broadcaster.register(client, "r1/ann", evictions::incrementAndGet);
+        // the first batch parks in onEvents, everything after it queues up
+        broadcaster.send(client, "r1/ann", new GameEvent.VoteRecorded());
+        assertTrue(client.entered.await(5, TimeUnit.SECONDS));
+        broadcaster.send(client, "r1/ann", new GameEvent.VotingDeadline(1, 30));
+        broadcaster.send(client, "r1/ann", new GameEvent.StateChanged(GameState.VOTING));
+        broadcaster.send(client, "r1/ann", new GameEvent.Chat("bob", "a clue"));
+        broadcaster.send(client, "r1/ann", new GameEvent.Chat("cat", "another"));
+        // full: the older deadline makes room for the newer one, the state change stays
+        broadcaster.send(client, "r1/ann", new GameEvent.VotingDeadline(2, 29));
+        client.release.countDown();
+
+        client.awaitEvents(5);
+        assertEquals(0, evictions.get());
+        assertEquals(List.of(new GameEvent.VoteRecorded(), new GameEvent.StateChanged(GameState.VOTING),
+                new GameEvent.Chat("bob", "a clue"), new GameEvent.Chat("cat", "another"),
+                new GameEvent.VotingDeadline(2, 29)), client.events);
+    }
+
+    @Test
+    void scopesHaveTheirOwnMailboxes() throws Exception {
+        BlockingClient client = new BlockingClient();
+        client.release.countDown();
+        assertTrue(broadcaster.register(client, "r1/ann", null));
+        assertFalse(broadcaster.register(client, "r1/ann", null));
+        assertTrue(broadcaster.register(client, LobbyIndex.MAILBOX, null));
+        broadcaster.forget(client, "r1/ann");
+
+        // nothing comes back to life through send
+        broadcaster.send(client, "r1/ann", new GameEvent.Chat("bob", "gone"));
+        broadcaster.send(client, LobbyIndex.MAILBOX, new GameEvent.RoomAssigned("r2"));
+        client.awaitEvents(1);
+        Thread.sleep(100);
+        assertEquals(List.of(new GameEvent.RoomAssigned("r2")), client.events);
+        assertEquals(0, broadcaster.queueDepth(client, "r1/ann"));
+    }
+
+    @Test
+    void failingClientIsEvictedOnce() throws Exception {
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicInteger evictions = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        GameClientInterface broken = new GameClientInterface() {
+            @Override
+            public void onEvents(List<GameEvent> events) throws RemoteException {
+                calls.incrementAndGet();
+                throw new RemoteException("connection lost");
+            }
+
+            @Override
+            public String getPlayerName() {
+                return "ann";
+            }
+        };
+        broadcaster.register(broken, "r1/ann", () -> {
+            evictions.incrementAndGet();
+            evicted.countDown();
+        });
+        broadcaster.send(broken, "r1/ann", new GameEvent.VoteRecorded());
+        assertTrue(evicted.await(5, TimeUnit.SECONDS));
+
+        broadcaster.send(broken, "r1/ann", new GameEvent.VoteRecorded());
+        Thread.sleep(100);
+        assertEquals(1, calls.get());
+        assertEquals(1, evictions.get());
+        assertTrue(broadcaster.metrics().isEmpty());
+    }
+
+    // Parks in its first onEvents until released, records everything it gets
+    private static final class BlockingClient implements GameClientInterface {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<GameEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvents(List<GameEvent> batch) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.addAll(batch);
+        }
+
+        @Override
+        public String getPlayerName() {
+            return "ann";
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
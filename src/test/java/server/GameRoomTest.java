@@ -0,0 +1,210 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import common.PlayerView;
+import journal.EventJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import stats.MatchResult;
+import words.WordSampler;
+import words.WordSource;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The room runs its loop on the calling thread here, every command is done when the call returns
+// unless the test holds the loop
+class GameRoomTest {
+    private static final List<String> NAMES = List.of("ann", "bob", "cat");
+
+    private final Queue<Runnable> held = new ArrayDeque<>();
+    private boolean holding;
+    private ManualTimers timers;
+    private Broadcaster broadcaster;
+    private GameRoom room;
+
+    @BeforeEach
+    void setUp() {
+        timers = new ManualTimers();
+        broadcaster = new Broadcaster(new MailboxConfig(64, 60_000));
+        room = new GameRoom("r1", this::runOrHold, timers, broadcaster, new WordSampler(new WordSource(null), null),
+                EventJournal.disabled(), Runnable::run, new NoListener());
+    }
+
+    @AfterEach
+    void tearDown() {
+        room.close();
+        timers.stop();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void deadlineRevealsTheVoteCounts() {
+        startAndPlayUntilVoting();
+        room.submitVote("ann", "cat");
+        room.submitVote("bob", "cat");
+        // cat never votes, the deadline ends the phase
+        assertTrue(timers.fireNext());
+
+        assertEquals(GameState.GAME_OVER, room.getGameState());
+        assertEquals(2, viewOf("cat").getVotes());
+        assertEquals(0, viewOf("ann").getVotes());
+        assertEquals(2, room.getPlayerDetails().stream().filter(p -> p.getName().equals("cat"))
+                .findFirst().orElseThrow().getVotes());
+    }
+
+    @Test
+    void voteAdmittedBeforeTheDeadlineIsAcknowledged() throws Exception {
+        RecordingClient ann = new RecordingClient("ann");
+        startAndPlayUntilVoting(ann);
+        room.submitVote("bob", "cat");
+
+        // the deadline is queued first, ann's vote is counted before the loop gets to either
+        holding = true;
+        assertTrue(timers.fireNext());
+        room.submitVote("ann", "cat");
+        holding = false;
+        runHeld();
+
+        assertEquals(GameState.GAME_OVER, room.getGameState());
+        assertEquals(2, viewOf("cat").getVotes());
+        assertTrue(viewOf("ann").hasVoted());
+        List<GameEvent> events = ann.awaitResult();
+        int recorded = events.indexOf(new GameEvent.VoteRecorded());
+        assertTrue(recorded >= 0, "no VoteRecorded in " + events);
+        assertEquals(recorded, events.lastIndexOf(new GameEvent.VoteRecorded()));
+        assertTrue(recorded < indexOfResult(events));
+    }
+
+    @Test
+    void lastPlayerLeavingClosesTheRoomAheadOfAQueuedRegistration() {
+        assertTrue(room.registerPlayer("ann", new QuietClient("ann")).join());
+
+        holding = true;
+        CompletableFuture<Boolean> left = room.removePlayer("ann");
+        CompletableFuture<Boolean> joined = room.registerPlayer("bob", new QuietClient("bob"));
+        holding = false;
+        runHeld();
+
+        assertTrue(left.join());
+        assertFalse(joined.join());
+        assertTrue(room.isClosed());
+    }
+
+    private void startAndPlayUntilVoting(RecordingClient... clients) {
+        for (String name : NAMES) {
+            GameClientInterface client = new QuietClient(name);
+            for (RecordingClient given : clients) {
+                if (given.name.equals(name)) {
+                    client = given;
+                }
+            }
+            assertTrue(room.registerPlayer(name, client).join());
+        }
+        room.startGame();
+        // every turn runs out, nobody gives a clue
+        while (room.getGameState() != GameState.VOTING) {
+            for (String name : NAMES) {
+                room.heartbeat(name);
+            }
+            assertTrue(timers.fireNext(), "stuck in " + room.getGameState());
+        }
+    }
+
+    private void runOrHold(Runnable task) {
+        if (holding) {
+            held.add(task);
+        } else {
+            task.run();
+        }
+    }
+
+    private void runHeld() {
+        Runnable task;
+        while ((task = held.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static int indexOfResult(List<GameEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i) instanceof GameEvent.VotingResult) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private PlayerView viewOf(String name) {
+        return room.getPlayers().stream().filter(v -> v.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private record QuietClient(String name) implements GameClientInterface {
+        @Override
+        public void onEvents(List<GameEvent> events) {
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+    }
+
+    private static final class RecordingClient implements GameClientInterface {
+        private final String name;
+        private final List<GameEvent> events = new CopyOnWriteArrayList<>();
+
+        RecordingClient(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onEvents(List<GameEvent> batch) {
+            events.addAll(batch);
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+
+        List<GameEvent> awaitResult() throws InterruptedException {
+            for (int i = 0; i < 500 && indexOfResult(events) < 0; i++) {
+                Thread.sleep(10);
+            }
+            return List.copyOf(events);
+        }
+    }
+
+    private static final class NoListener implements RoomListener {
+        @Override
+        public void roomCreated(String roomId) {
+        }
+
+        @Override
+        public void roomRemoved(String roomId) {
+        }
+
+        @Override
+        public void rosterChanged(String roomId, GameEvent delta) {
+        }
+
+        @Override
+        public void stateChanged(String roomId, GameState state) {
+        }
+
+        @Override
+        public void matchFinished(String roomId, MatchResult result) {
+        }
+    }
+}
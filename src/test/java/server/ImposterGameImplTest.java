@@ -0,0 +1,128 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import stats.MatchResult;
+
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImposterGameImplTest {
+    private static final GameClientInterface CLIENT = new GameClientInterface() {
+        @Override
+        public void onEvents(List<GameEvent> events) {
+        }
+
+        @Override
+        public String getPlayerName() {
+            return "ann";
+        }
+    };
+
+    private ImposterGameImpl game;
+
+    @BeforeEach
+    void setUp() throws RemoteException {
+        game = new ImposterGameImpl();
+    }
+
+    @AfterEach
+    void tearDown() {
+        game.shutdown();
+    }
+
+    @Test
+    void rejectsMissingAndMalformedNames() throws RemoteException {
+        for (String name : Arrays.asList(null, "", "   ", "ann\nbob", "tab\there")) {
+            assertFalse(game.registerPlayer("r1", name, CLIENT), "registered " + name);
+            assertFalse(game.joinQueue(name, CLIENT), "queued " + name);
+        }
+        assertTrue(game.getRoomIds().isEmpty());
+    }
+
+    @Test
+    @Timeout(10)
+    void failedRoomCommandReachesTheCallerAndTheLog() throws Exception {
+        CompletableFuture<Throwable> logged = new CompletableFuture<>();
+        game.getRoomManager().addListener(new RoomListener() {
+            @Override
+            public void roomCreated(String roomId) {
+            }
+
+            @Override
+            public void roomRemoved(String roomId) {
+            }
+
+            @Override
+            public void rosterChanged(String roomId, GameEvent delta) {
+                throw new IllegalStateException("listener broke");
+            }
+
+            @Override
+            public void stateChanged(String roomId, GameState state) {
+            }
+
+            @Override
+            public void matchFinished(String roomId, MatchResult result) {
+            }
+
+            @Override
+            public void commandFailed(String roomId, Throwable error) {
+                logged.complete(error);
+            }
+        });
+
+        // used to block the RMI thread forever
+        assertThrows(RemoteException.class, () -> game.registerPlayer("r1", "ann", CLIENT));
+        assertEquals("listener broke", logged.get(5, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    void acceptsPlainNames() throws RemoteException {
+        assertTrue(game.registerPlayer("r1", "ann", CLIENT));
+        assertEquals("ann", game.getPlayers("r1").get(0).getName());
+        assertTrue(game.joinQueue("bob", CLIENT));
+    }
+
+    @Test
+    void playerJoiningBehindTheLastOneOutGetsAFreshRoom() throws Exception {
+        assertTrue(game.registerPlayer("r1", "ann", CLIENT));
+        GameRoom first = game.getRoomManager().getRoom("r1");
+        // closed on its loop but not yet dropped from the manager, the window leaveRoom leaves open
+        assertTrue(first.removePlayer("ann").get(5, TimeUnit.SECONDS));
+        assertSame(first, game.getRoomManager().getRoom("r1"));
+
+        assertTrue(game.registerPlayer("r1", "bob", CLIENT));
+        GameRoom second = game.getRoomManager().getRoom("r1");
+        assertNotSame(first, second);
+        assertFalse(second.isClosed());
+        assertEquals("bob", game.getPlayers("r1").get(0).getName());
+    }
+
+    @Test
+    @Timeout(10)
+    void lastPlayerLeavingRemovesTheRoom() throws Exception {
+        assertTrue(game.registerPlayer("r1", "ann", CLIENT));
+        GameRoom room = game.getRoomManager().getRoom("r1");
+        game.leaveRoom("r1", "ann");
+        while (game.getRoomManager().getRoom("r1") != null) {
+            Thread.sleep(10);
+        }
+        assertTrue(room.isClosed());
+    }
+}
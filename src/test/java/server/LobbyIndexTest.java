@@ -0,0 +1,94 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LobbyIndexTest {
+    private final RoomManager manager = new RoomManager();
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void deadSubscribersAreDropped() throws Exception {
+        GameClientInterface gone = new GameClientInterface() {
+            @Override
+            public void onEvents(List<GameEvent> events) throws RemoteException {
+                throw new RemoteException("connection lost");
+            }
+
+            @Override
+            public String getPlayerName() {
+                return null;
+            }
+        };
+        LobbyIndex lobby = manager.getLobby();
+        lobby.subscribe(gone);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lobby.getSubscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, lobby.getSubscriberCount());
+    }
+
+    @Test
+    void subscribersNeverSeeTheVersionGoBack() throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread churn = new Thread(() -> {
+            while (!stop.get()) {
+                manager.createRoom();
+                Thread.onSpinWait();
+            }
+        });
+        churn.start();
+        List<VersionClient> clients = new ArrayList<>();
+        long until = System.currentTimeMillis() + 1500;
+        while (System.currentTimeMillis() < until) {
+            VersionClient client = new VersionClient();
+            clients.add(client);
+            manager.getLobby().subscribe(client);
+            Thread.sleep(5);
+        }
+        stop.set(true);
+        churn.join();
+        Thread.sleep(2 * LobbyIndex.FLUSH_MILLIS);
+
+        for (VersionClient client : clients) {
+            assertFalse(client.wentBack.get());
+            assertTrue(client.last.get() > 0);
+        }
+    }
+
+    private static final class VersionClient implements GameClientInterface {
+        final AtomicLong last = new AtomicLong(-1);
+        final AtomicBoolean wentBack = new AtomicBoolean();
+
+        @Override
+        public void onEvents(List<GameEvent> events) {
+            for (GameEvent event : events) {
+                if (event instanceof GameEvent.LobbyChanged changed && changed.version() <= last.getAndSet(changed.version())) {
+                    wentBack.set(true);
+                }
+            }
+        }
+
+        @Override
+        public String getPlayerName() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Timing wheel whose timeouts only fire when a test says so
+class ManualTimers extends TimingWheel {
+    private final List<Entry> entries;
+
+    ManualTimers() {
+        super(1, TimeUnit.HOURS, 8, Runnable::run);
+        this.entries = new ArrayList<>();
+    }
+
+    @Override
+    public synchronized Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        // parked far out so the real wheel never gets to it
+        Timeout timeout = super.schedule(task, 1, TimeUnit.DAYS);
+        entries.add(new Entry(task, timeout, unit.toMillis(delay)));
+        return timeout;
+    }
+
+    // Fires the oldest live timeout of at least a second, lease checks are left alone.
+    // Returns false when there is none.
+    boolean fireNext() {
+        Entry next = null;
+        synchronized (this) {
+            for (Entry entry : entries) {
+                if (entry.delayMillis >= 1000 && !entry.timeout.isCancelled()) {
+                    next = entry;
+                    break;
+                }
+            }
+            if (next == null) {
+                return false;
+            }
+            entries.remove(next);
+        }
+        next.task.run();
+        return true;
+    }
+
+    private record Entry(Runnable task, Timeout timeout, long delayMillis) {
+    }
+}
@@ -0,0 +1,200 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import common.PlayerView;
+import journal.EventJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import stats.MatchResult;
+import words.WordSampler;
+import words.WordSource;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Rooms come from a factory standing in for the RoomManager, their loops run on the caller
+class MatchmakerTest {
+    private final ManualTimers timers = new ManualTimers();
+    private final Broadcaster broadcaster = new Broadcaster(new MailboxConfig(64, 60_000));
+    private final List<GameRoom> rooms = new CopyOnWriteArrayList<>();
+    private Matchmaker matchmaker;
+
+    @AfterEach
+    void tearDown() {
+        matchmaker.shutdown();
+        for (GameRoom room : rooms) {
+            room.close();
+        }
+        timers.stop();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void fullBatchGetsOneRoomInArrivalOrder() throws Exception {
+        start(4, 60_000);
+        List<RecordingClient> clients = enqueue("ann", "bob", "cat", "dan", "eve");
+
+        await(() -> rooms.size() == 1 && rooms.get(0).getGameState() != GameState.WAITING_FOR_PLAYERS);
+        GameRoom room = rooms.get(0);
+        assertEquals(List.of("ann", "bob", "cat", "dan"), names(room));
+        for (RecordingClient client : clients.subList(0, 4)) {
+            List<GameEvent> events = client.await(2);
+            // the room comes first, the game follows
+            assertEquals(new GameEvent.RoomAssigned(room.getRoomId()), events.get(0));
+        }
+        // eve keeps waiting for the next batch
+        assertEquals(1, matchmaker.getQueueSize());
+        assertTrue(clients.get(4).events.isEmpty());
+    }
+
+    @Test
+    void cancelledPlayerIsSkippedAndCannotCancelTwice() throws Exception {
+        start(3, 60_000);
+        enqueue("ann", "bob");
+        assertTrue(matchmaker.cancel("bob"));
+        assertFalse(matchmaker.cancel("bob"));
+        assertFalse(matchmaker.cancel("zed"));
+        enqueue("cat", "dan");
+
+        await(() -> rooms.size() == 1 && names(rooms.get(0)).size() == 3);
+        assertEquals(List.of("ann", "cat", "dan"), names(rooms.get(0)));
+        // seated, nothing left to cancel
+        assertFalse(matchmaker.cancel("ann"));
+        assertEquals(0, matchmaker.getQueueSize());
+    }
+
+    @Test
+    void sameNameCannotQueueTwice() throws Exception {
+        start(4, 60_000);
+        assertTrue(matchmaker.enqueue("ann", new RecordingClient("ann")));
+        assertFalse(matchmaker.enqueue("ann", new RecordingClient("ann")));
+        assertEquals(1, matchmaker.getQueueSize());
+    }
+
+    @Test
+    void partialBatchStartsAfterTheWaitOnlyWithEnoughPlayers() throws Exception {
+        start(6, 200);
+        enqueue("ann", "bob");
+        Thread.sleep(500);
+        // two can't play, they keep their place
+        assertTrue(rooms.isEmpty());
+        assertEquals(2, matchmaker.getQueueSize());
+
+        enqueue("cat");
+        await(() -> rooms.size() == 1 && names(rooms.get(0)).size() == 3);
+        assertEquals(List.of("ann", "bob", "cat"), names(rooms.get(0)));
+    }
+
+    @Test
+    void playerWhoDisconnectedWhileQueuedDoesNotHoldUpTheRoom() throws Exception {
+        start(4, 60_000);
+        matchmaker.enqueue("ann", new DeadClient("ann"));
+        enqueue("bob", "cat", "dan");
+
+        await(() -> rooms.size() == 1 && rooms.get(0).getGameState() != GameState.WAITING_FOR_PLAYERS);
+        GameRoom room = rooms.get(0);
+        // the failed RoomAssigned evicts ann, the others play on
+        await(() -> room.getPlayers().stream().noneMatch(p -> p.getName().equals("ann") && p.isConnected()));
+        assertEquals(3, room.getPlayers().stream().filter(PlayerView::isConnected).count());
+    }
+
+    private void start(int roomSize, long maxWaitMillis) {
+        matchmaker = new Matchmaker(this::newRoom, new MatchmakerConfig(roomSize, maxWaitMillis));
+    }
+
+    private GameRoom newRoom() {
+        GameRoom room = new GameRoom("match-" + (rooms.size() + 1), Runnable::run, timers, broadcaster,
+                new WordSampler(new WordSource(null), null), EventJournal.disabled(), Runnable::run, new NoListener());
+        rooms.add(room);
+        return room;
+    }
+
+    private List<RecordingClient> enqueue(String... names) {
+        List<RecordingClient> clients = new ArrayList<>();
+        for (String name : names) {
+            RecordingClient client = new RecordingClient(name);
+            assertTrue(matchmaker.enqueue(name, client));
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private static List<String> names(GameRoom room) {
+        return room.getPlayers().stream().map(PlayerView::getName).toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static final class RecordingClient implements GameClientInterface {
+        private final String name;
+        private final List<GameEvent> events = new CopyOnWriteArrayList<>();
+
+        RecordingClient(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onEvents(List<GameEvent> batch) {
+            events.addAll(batch);
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+
+        List<GameEvent> await(int count) throws InterruptedException {
+            MatchmakerTest.await(() -> events.size() >= count);
+            return List.copyOf(events);
+        }
+    }
+
+    // A client whose process went away after it queued
+    private record DeadClient(String name) implements GameClientInterface {
+        @Override
+        public void onEvents(List<GameEvent> events) throws RemoteException {
+            throw new RemoteException("connection refused");
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+    }
+
+    private static final class NoListener implements RoomListener {
+        @Override
+        public void roomCreated(String roomId) {
+        }
+
+        @Override
+        public void roomRemoved(String roomId) {
+        }
+
+        @Override
+        public void rosterChanged(String roomId, GameEvent delta) {
+        }
+
+        @Override
+        public void stateChanged(String roomId, GameState state) {
+        }
+
+        @Override
+        public void matchFinished(String roomId, MatchResult result) {
+        }
+    }
+}
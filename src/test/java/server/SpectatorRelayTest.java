@@ -0,0 +1,211 @@
+package server;
+
+import common.GameClientInterface;
+import common.GameEvent;
+import common.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pump and drains are queued and run when the test says so, unless a test needs real threads
+class SpectatorRelayTest {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final SpectatorRelay relay = new SpectatorRelay(tasks::add);
+
+    @Test
+    void lateSpectatorCatchesUpFromASnapshotThenFollowsTheLog() {
+        relay.append(new GameEvent.RosterReset(1, List.of("ann")));
+        relay.append(new GameEvent.PlayerJoined(2, "bob"));
+        relay.append(new GameEvent.PlayerJoined(3, "cat"));
+        relay.append(new GameEvent.StateChanged(GameState.ROUND_1));
+        for (int i = 0; i < SpectatorRelay.CHAT_TAIL + 5; i++) {
+            relay.append(new GameEvent.Chat("ann", "clue " + i));
+        }
+        Watcher late = new Watcher();
+        assertTrue(relay.add(late));
+        runTasks();
+
+        List<GameEvent> expected = new ArrayList<>();
+        expected.add(new GameEvent.RosterReset(3, List.of("ann", "bob", "cat")));
+        expected.add(new GameEvent.StateChanged(GameState.ROUND_1));
+        for (int i = 5; i < SpectatorRelay.CHAT_TAIL + 5; i++) {
+            expected.add(new GameEvent.Chat("ann", "clue " + i));
+        }
+        assertEquals(List.of(expected), late.batches);
+
+        relay.append(new GameEvent.Chat("bob", "next"));
+        relay.signal();
+        runTasks();
+        assertEquals(List.of(new GameEvent.Chat("bob", "next")), late.batches.get(1));
+    }
+
+    @Test
+    void spectatorsAtTheSameCursorShareOneBatch() {
+        Watcher first = new Watcher();
+        Watcher second = new Watcher();
+        relay.add(first);
+        relay.add(second);
+        runTasks();
+
+        relay.append(new GameEvent.Chat("ann", "clue"));
+        relay.append(new GameEvent.StateChanged(GameState.ROUND_2));
+        relay.signal();
+        runTasks();
+        assertEquals(2, first.batches.size());
+        assertSame(first.batches.get(1), second.batches.get(1));
+    }
+
+    @Test
+    void spectatorExactlyOneLogBehindStillGetsEveryEvent() {
+        Watcher watcher = new Watcher();
+        relay.add(watcher);
+        runTasks();
+
+        for (int i = 0; i < SpectatorRelay.LOG_CAPACITY; i++) {
+            relay.append(new GameEvent.Chat("ann", "clue " + i));
+        }
+        relay.signal();
+        runTasks();
+        List<GameEvent> batch = watcher.batches.get(1);
+        assertEquals(SpectatorRelay.LOG_CAPACITY, batch.size());
+        assertEquals(new GameEvent.Chat("ann", "clue 0"), batch.get(0));
+    }
+
+    @Test
+    void spectatorBehindTheTrimmedLogGetsOneSnapshotInstead() {
+        relay.append(new GameEvent.RosterReset(1, List.of("ann", "bob", "cat")));
+        relay.append(new GameEvent.StateChanged(GameState.ROUND_3));
+        Watcher slow = new Watcher();
+        relay.add(slow);
+        runTasks();
+
+        // the oldest undelivered events are overwritten before the slow watcher's turn comes
+        for (int i = 0; i < SpectatorRelay.LOG_CAPACITY + 10; i++) {
+            relay.append(new GameEvent.Chat("bob", "clue " + i));
+        }
+        relay.signal();
+        runTasks();
+        List<GameEvent> batch = slow.batches.get(1);
+        assertEquals(new GameEvent.RosterReset(1, List.of("ann", "bob", "cat")), batch.get(0));
+        assertEquals(new GameEvent.StateChanged(GameState.ROUND_3), batch.get(1));
+        assertEquals(2 + SpectatorRelay.CHAT_TAIL, batch.size());
+        assertEquals(new GameEvent.Chat("bob", "clue " + (SpectatorRelay.LOG_CAPACITY + 9)), batch.get(batch.size() - 1));
+    }
+
+    @Test
+    void unreachableSpectatorIsDroppedWithoutTouchingTheOthers() {
+        Watcher healthy = new Watcher();
+        relay.add(healthy);
+        relay.add(new GameClientInterface() {
+            @Override
+            public void onEvents(List<GameEvent> events) throws RemoteException {
+                throw new RemoteException("gone");
+            }
+
+            @Override
+            public String getPlayerName() {
+                return "broken";
+            }
+        });
+        runTasks();
+        assertEquals(1, relay.size());
+
+        relay.append(new GameEvent.Chat("ann", "clue"));
+        relay.signal();
+        runTasks();
+        assertEquals(2, healthy.batches.size());
+    }
+
+    @Test
+    void blockedSpectatorDoesNotHoldUpTheOthers() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            SpectatorRelay threaded = new SpectatorRelay(executor);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch stuck = new CountDownLatch(1);
+            threaded.add(new GameClientInterface() {
+                @Override
+                public void onEvents(List<GameEvent> events) throws RemoteException {
+                    stuck.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public String getPlayerName() {
+                    return "slow";
+                }
+            });
+            assertTrue(stuck.await(5, TimeUnit.SECONDS));
+
+            Watcher fast = new Watcher();
+            threaded.add(fast);
+            for (int i = 0; i < 50; i++) {
+                threaded.append(new GameEvent.Chat("ann", "clue " + i));
+                threaded.signal();
+            }
+            for (int i = 0; i < 500 && !fast.received(new GameEvent.Chat("ann", "clue 49")); i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(fast.received(new GameEvent.Chat("ann", "clue 49")));
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closedRelayTakesNoSpectators() {
+        Watcher watcher = new Watcher();
+        relay.add(watcher);
+        relay.close();
+        assertFalse(relay.add(new Watcher()));
+        relay.append(new GameEvent.Chat("ann", "clue"));
+        relay.signal();
+        runTasks();
+        assertEquals(0, relay.size());
+        assertTrue(watcher.batches.isEmpty());
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static final class Watcher implements GameClientInterface {
+        private final List<List<GameEvent>> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvents(List<GameEvent> events) {
+            batches.add(events);
+        }
+
+        @Override
+        public String getPlayerName() {
+            return "watcher";
+        }
+
+        boolean received(GameEvent event) {
+            return batches.stream().anyMatch(batch -> batch.contains(event));
+        }
+    }
+}
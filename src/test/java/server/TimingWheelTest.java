@@ -0,0 +1,103 @@
+package server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Real clock, so upper bounds are generous and only the lower bounds are tight
+class TimingWheelTest {
+    private static final long TICK_MILLIS = 10;
+
+    // 8 buckets, one lap is 80ms
+    private final TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, 8, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void delayIsRoundedUpToATickNeverDown() throws InterruptedException {
+        for (long delay : new long[]{0, 1, 15, 25, 40}) {
+            long start = System.nanoTime();
+            AtomicLong firedAt = new AtomicLong();
+            CountDownLatch fired = new CountDownLatch(1);
+            wheel.schedule(() -> {
+                firedAt.set(System.nanoTime());
+                fired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS), "never fired after " + delay + "ms");
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(firedAt.get() - start);
+            assertTrue(elapsed >= delay, delay + "ms fired after " + elapsed + "ms");
+            assertTrue(elapsed < delay + 500, delay + "ms fired after " + elapsed + "ms");
+        }
+    }
+
+    @Test
+    void timeoutLongerThanALapWaitsOutItsRounds() throws InterruptedException {
+        long start = System.nanoTime();
+        AtomicLong firedAt = new AtomicLong();
+        CountDownLatch fired = new CountDownLatch(1);
+        // 2.5 laps, lands in a bucket the wheel passes twice before it is due
+        wheel.schedule(() -> {
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        }, 200, TimeUnit.MILLISECONDS);
+        // a short one in the same bucket must not drag the long one along
+        CountDownLatch shortFired = new CountDownLatch(1);
+        wheel.schedule(shortFired::countDown, 40, TimeUnit.MILLISECONDS);
+
+        assertTrue(shortFired.await(2, TimeUnit.SECONDS));
+        assertEquals(1, fired.getCount());
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt.get() - start) >= 200);
+    }
+
+    @Test
+    void cancelledTimeoutNeverRuns() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+
+        // a later timeout firing means the cancelled one's tick has passed
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    void cancelAfterExpiryIsANoOp() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    void stopDropsPendingTimeoutsAndRefusesNewOnes() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        wheel.schedule(runs::incrementAndGet, 500, TimeUnit.MILLISECONDS);
+        wheel.stop();
+
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(runs::incrementAndGet, 0, TimeUnit.MILLISECONDS));
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+    }
+}
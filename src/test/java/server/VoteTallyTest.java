@@ -0,0 +1,135 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoteTallyTest {
+    private static final Map<String, Integer> SEATS = Map.of("ann", 0, "bob", 1, "cat", 2, "dan", 3);
+
+    @Test
+    void leaderIsTheSeatWithStrictlyMostVotes() {
+        VoteTally tally = new VoteTally(SEATS, 4, 4);
+        assertTrue(tally.isTie());
+        assertEquals(SeatIndex.NO_SEAT, tally.leader());
+
+        assertEquals(VoteTally.RECORDED, tally.vote(0, 2));
+        assertEquals(2, tally.leader());
+        assertEquals(VoteTally.RECORDED, tally.vote(1, 3));
+        assertTrue(tally.isTie());
+        assertEquals(SeatIndex.NO_SEAT, tally.leader());
+        assertEquals(VoteTally.RECORDED, tally.vote(3, 2));
+        assertFalse(tally.isTie());
+        assertEquals(2, tally.leader());
+        assertEquals(2, tally.votesFor(2));
+        assertEquals(1, tally.votesFor(3));
+    }
+
+    @Test
+    void abstentionsCountTowardsCompletionOnly() {
+        VoteTally tally = new VoteTally(SEATS, 4, 2);
+        assertEquals(VoteTally.RECORDED, tally.vote(0, SeatIndex.NO_SEAT));
+        assertEquals(VoteTally.COMPLETED, tally.vote(1, SeatIndex.NO_SEAT));
+        assertTrue(tally.isTie());
+        assertEquals(SeatIndex.NO_SEAT, tally.targetOf(0));
+        assertEquals(2, tally.votesCast());
+    }
+
+    @Test
+    void secondVoteAndUnknownVotersAreRejected() {
+        VoteTally tally = new VoteTally(SEATS, 4, 4);
+        assertEquals(VoteTally.RECORDED, tally.vote(0, 1));
+        assertEquals(VoteTally.REJECTED, tally.vote(0, 2));
+        assertEquals(VoteTally.REJECTED, tally.vote(tally.seatOf("eve"), 2));
+        assertEquals(SeatIndex.NO_SEAT, tally.seatOf(null));
+        assertEquals(1, tally.votesCast());
+        assertEquals(0, tally.votesFor(2));
+        assertEquals(1, tally.targetOf(0));
+    }
+
+    @Test
+    void closedTallyRejectsAndDoesNotShowTheVoter() {
+        VoteTally tally = new VoteTally(SEATS, 4, 4);
+        tally.vote(0, 1);
+        tally.close();
+        assertEquals(VoteTally.REJECTED, tally.vote(1, 2));
+        assertFalse(tally.hasVoted(1));
+        assertEquals(0, tally.votesFor(2));
+        assertTrue(tally.hasVoted(0));
+    }
+
+    @Test
+    void exactlyOneCallerCompletesThePhase() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            VoteTally tally = new VoteTally(SEATS, 4, 4);
+            AtomicInteger completed = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] voters = new Thread[4];
+            for (int seat = 0; seat < 4; seat++) {
+                int voter = seat;
+                voters[seat] = new Thread(() -> {
+                    await(start);
+                    if (tally.vote(voter, (voter + 1) % 4) == VoteTally.COMPLETED) {
+                        completed.incrementAndGet();
+                    }
+                });
+                voters[seat].start();
+            }
+            start.countDown();
+            for (Thread voter : voters) {
+                voter.join();
+            }
+            assertEquals(1, completed.get());
+            assertEquals(4, tally.votesCast());
+            assertTrue(tally.isTie());
+        }
+    }
+
+    @Test
+    void closeRacingVotesCountsExactlyTheAdmittedOnes() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            VoteTally tally = new VoteTally(SEATS, 4, 4);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger admitted = new AtomicInteger();
+            Thread[] voters = new Thread[4];
+            for (int seat = 0; seat < 4; seat++) {
+                int voter = seat;
+                voters[seat] = new Thread(() -> {
+                    await(start);
+                    if (tally.vote(voter, 0) != VoteTally.REJECTED) {
+                        admitted.incrementAndGet();
+                    }
+                });
+                voters[seat].start();
+            }
+            start.countDown();
+            tally.close();
+            // whatever close let in is fully counted by the time it returns
+            int counted = tally.votesFor(0);
+            int shown = 0;
+            for (int seat = 0; seat < 4; seat++) {
+                shown += tally.hasVoted(seat) ? 1 : 0;
+            }
+            for (Thread voter : voters) {
+                voter.join();
+            }
+            assertEquals(admitted.get(), counted);
+            assertEquals(counted, shown);
+            assertEquals(counted, tally.votesCast());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package stats;
+
+import common.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardTest {
+    private static final Comparator<Map.Entry<String, Double>> ORDER =
+            Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    @Test
+    void rankSelectAndUpdatesMatchASortedList() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            Leaderboard board = new Leaderboard();
+            Map<String, Double> ratings = new HashMap<>();
+            Map<String, Integer> games = new HashMap<>();
+            for (int step = 0; step < 2000; step++) {
+                String player = "p" + random.nextInt(200);
+                // few distinct ratings, so ties fall back to the name
+                double rating = 900 + random.nextInt(40) * 5;
+                board.put(player, rating);
+                ratings.put(player, rating);
+                games.merge(player, 1, Integer::sum);
+                if (step % 100 == 99) {
+                    check(board, ratings, games, random, "seed " + seed + " step " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    void finishedMatchMovesRatingsTheRightWay() {
+        Leaderboard board = new Leaderboard();
+        assertNull(board.rankOf("ann"));
+        board.record(new MatchResult(0, List.of("ann", "bob", "cat"), "ann", "bob", false, false));
+
+        LeaderboardEntry ann = board.rankOf("ann");
+        assertEquals(1, ann.rank());
+        assertTrue(ann.rating() > Leaderboard.START_RATING);
+        assertTrue(board.rankOf("bob").rating() < Leaderboard.START_RATING);
+        assertEquals(1, ann.gamesPlayed());
+        assertEquals(3, board.size());
+
+        // caught next time, back down
+        board.record(new MatchResult(1, List.of("ann", "bob", "cat"), "ann", "ann", false, true));
+        assertTrue(board.rankOf("ann").rating() < ann.rating());
+        assertEquals(2, board.rankOf("ann").gamesPlayed());
+        assertEquals(3, board.size());
+    }
+
+    private static void check(Leaderboard board, Map<String, Double> ratings, Map<String, Integer> games,
+                              Random random, String where) {
+        List<Map.Entry<String, Double>> sorted = new ArrayList<>(ratings.entrySet());
+        sorted.sort(ORDER);
+        assertEquals(sorted.size(), board.size(), where);
+
+        List<LeaderboardEntry> all = board.page(0, Integer.MAX_VALUE);
+        assertEquals(sorted.size(), all.size(), where);
+        for (int i = 0; i < sorted.size(); i++) {
+            String name = sorted.get(i).getKey();
+            LeaderboardEntry expected = new LeaderboardEntry(i + 1, name,
+                    (int) Math.round(sorted.get(i).getValue()), games.get(name));
+            assertEquals(expected, all.get(i), where);
+            assertEquals(expected, board.rankOf(name), where);
+        }
+        for (int i = 0; i < 20; i++) {
+            int offset = random.nextInt(sorted.size() + 5);
+            int limit = random.nextInt(15);
+            List<LeaderboardEntry> page = board.page(offset, limit);
+            assertEquals(all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size())), page,
+                    where + " page " + offset + "+" + limit);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatchStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentMatchesReplayWithTheirOwnNames() throws Exception {
+        MatchStore store = MatchStore.open(directory);
+        int threads = 8;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    // every match brings new names, so every record depends on its own names line
+                    String prefix = "t" + thread + "m" + i;
+                    store.record(match(i, prefix + "a", prefix + "b", prefix + "c"));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        store.close();
+
+        MatchStore reopened = MatchStore.open(directory);
+        List<MatchResult> replayed = new ArrayList<>();
+        reopened.replay(replayed::add);
+        assertEquals(threads * perThread, replayed.size());
+        for (MatchResult result : replayed) {
+            String first = result.players().get(0);
+            String prefix = first.substring(0, first.length() - 1);
+            assertEquals(List.of(prefix + "a", prefix + "b", prefix + "c"), result.players());
+            assertEquals(prefix + "a", result.imposter());
+        }
+        assertEquals(1, reopened.getStats("t3m7b").gamesPlayed());
+        reopened.close();
+    }
+
+    @Test
+    void lineBreaksInNamesDoNotShiftLaterIds() throws IOException {
+        MatchStore store = MatchStore.open(directory);
+        store.record(match(1, "ann\nbob", "cat", "dan"));
+        store.record(match(2, "eve", "fay", "gus"));
+        store.close();
+
+        MatchStore reopened = MatchStore.open(directory);
+        List<MatchResult> replayed = new ArrayList<>();
+        reopened.replay(replayed::add);
+        assertEquals(List.of("eve", "fay", "gus"), replayed.get(1).players());
+        assertEquals(1, reopened.getStats("fay").gamesPlayed());
+        reopened.close();
+    }
+
+    @Test
+    void recordsNamingUnknownPlayersAreSkipped() throws IOException {
+        MatchStore store = MatchStore.open(directory);
+        store.record(match(1, "ann", "bob", "cat"));
+        store.close();
+        // a record that reached the disk ahead of its names
+        ByteBuffer dangling = ByteBuffer.allocate(MatchStore.RECORD_BYTES);
+        dangling.putLong(2).put((byte) 3).put((byte) 0).putShort((short) 0).putInt(7).putInt(-1);
+        for (int i = 0; i < MatchStore.MAX_PLAYERS; i++) {
+            dangling.putInt(i < 3 ? 5 + i : -1);
+        }
+        try (FileChannel file = FileChannel.open(directory.resolve("matches.dat"), StandardOpenOption.APPEND)) {
+            file.write(dangling.flip());
+        }
+
+        MatchStore reopened = MatchStore.open(directory);
+        List<MatchResult> replayed = new ArrayList<>();
+        reopened.replay(replayed::add);
+        assertEquals(1, replayed.size());
+        assertEquals(1, reopened.getStats("ann").gamesPlayed());
+        reopened.close();
+    }
+
+    private static MatchResult match(long endedAt, String imposter, String... crew) {
+        List<String> players = new ArrayList<>();
+        players.add(imposter);
+        players.addAll(List.of(crew));
+        return new MatchResult(endedAt, players, imposter, crew[0], false, true);
+    }
+}
@@ -0,0 +1,175 @@
+package transport;
+
+import common.GameEvent;
+import common.GameState;
+import common.LeaderboardEntry;
+import common.PlayerStats;
+import common.PlayerView;
+import common.RoomPage;
+import common.RoomSummary;
+import common.RosterSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CodecTest {
+
+    @Test
+    void roundTripsPlainValues() throws IOException {
+        assertEquals(null, roundTrip(null));
+        assertEquals(true, roundTrip(true));
+        assertEquals(42, roundTrip(42));
+        assertEquals(7L, roundTrip(7L));
+        assertEquals("héllo", roundTrip("héllo"));
+        assertEquals(GameState.VOTING, roundTrip(GameState.VOTING));
+        assertEquals(List.of(1, "two", List.of(3L)), roundTrip(List.of(1, "two", List.of(3L))));
+    }
+
+    @Test
+    void roundTripsRecords() throws IOException {
+        PlayerStats stats = new PlayerStats("ann", 10, 4, 3, 1, 7, 2);
+        assertEquals(stats, roundTrip(stats));
+        LeaderboardEntry entry = new LeaderboardEntry(1, "ann", 1512, 10);
+        assertEquals(entry, roundTrip(entry));
+        RoomPage page = new RoomPage(3, 2, List.of(new RoomSummary("r1", 2, 200, GameState.WAITING_FOR_PLAYERS),
+                new RoomSummary("r2", 6, 6, GameState.ROUND_2)));
+        assertEquals(page, roundTrip(page));
+
+        RosterSnapshot roster = (RosterSnapshot) roundTrip(new RosterSnapshot(5, 4,
+                List.of(new PlayerView("ann", true, false, 2))));
+        assertEquals(5, roster.version());
+        assertEquals(4, roster.deltaVersion());
+        PlayerView view = roster.players().get(0);
+        assertEquals("ann", view.getName());
+        assertEquals(true, view.isConnected());
+        assertEquals(false, view.hasVoted());
+        assertEquals(2, view.getVotes());
+    }
+
+    @Test
+    void roundTripsEventBatches() throws IOException {
+        List<GameEvent> batch = List.of(
+                new GameEvent.StateChanged(GameState.ROUND_1),
+                new GameEvent.Chat("ann", "a clue"),
+                new GameEvent.YourTurn(true, 123L),
+                new GameEvent.WordAssigned(null, true, "fruit"),
+                new GameEvent.VotingDeadline(456L, 30),
+                new GameEvent.VoteRecorded(),
+                new GameEvent.VotingResult("bob", false, "caught"),
+                new GameEvent.RoomAssigned("r9"),
+                new GameEvent.LobbyChanged(8, List.of(new RoomSummary("r1", 1, 6, GameState.STARTING)), List.of("r2")),
+                new GameEvent.RosterReset(1, List.of("ann", "bob")),
+                new GameEvent.PlayerJoined(2, "cat"),
+                new GameEvent.PlayerLeft(3, "bob"),
+                new GameEvent.PlayerUpdated(4, "ann", true));
+        assertEquals(batch, Codec.readEvents(input(encode(batch))));
+    }
+
+    @Test
+    void decodesCallbackMarker() throws IOException {
+        assertSame(Codec.CALLBACK_REF, Codec.read(input(bytes(10))));
+    }
+
+    @Test
+    void rejectsBadStateOrdinal() {
+        assertRejected(bytes(7, 99));
+        assertRejected(bytes(7, 0x80));
+        assertRejected(bytes(9, 1, 0xff));
+    }
+
+    @Test
+    void rejectsBadListSizes() {
+        assertRejected(bytes(6, 0xff, 0xff, 0xff, 0xff));
+        assertRejected(bytes(6, 0x7f, 0xff, 0xff, 0xff));
+        // two elements announced, one present
+        assertRejected(bytes(6, 0, 0, 0, 2, 0));
+    }
+
+    @Test
+    void rejectsBadRosterResetSize() {
+        // event, roster reset, version, then a name count far beyond the frame
+        byte[] header = bytes(9, 8, 0, 0, 0, 0, 0, 0, 0, 1);
+        byte[] frame = Arrays.copyOf(header, header.length + 4);
+        frame[header.length] = 0x10;
+        assertRejected(frame);
+    }
+
+    @Test
+    void rejectsWrongElementTypes() throws IOException {
+        // a page whose rooms are plain strings
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(15);
+        out.writeLong(1);
+        out.writeInt(1);
+        Codec.write(out, List.of("not a room"));
+        assertRejected(bytes.toByteArray());
+
+        // a roster with a null player
+        bytes.reset();
+        out.writeByte(11);
+        out.writeLong(1);
+        out.writeLong(1);
+        Codec.write(out, Arrays.asList((Object) null));
+        assertRejected(bytes.toByteArray());
+
+        // an event batch that holds something else
+        assertThrows(IOException.class, () -> Codec.readEvents(input(encode(List.of("chat")))));
+        assertThrows(IOException.class, () -> Codec.readEvents(input(encode("chat"))));
+    }
+
+    @Test
+    void rejectsDeepNesting() {
+        byte[] frame = new byte[5 * 64 + 1];
+        for (int i = 0; i < 64; i++) {
+            frame[i * 5] = 6;
+            frame[i * 5 + 4] = 1;
+        }
+        assertRejected(frame);
+    }
+
+    @Test
+    void rejectsUnknownTagsAndTruncation() throws IOException {
+        assertRejected(bytes(99));
+        assertRejected(bytes(9, 99));
+        assertRejected(bytes(-1));
+        byte[] chat = encode(new GameEvent.Chat("ann", "a clue"));
+        assertRejected(Arrays.copyOf(chat, chat.length - 1));
+    }
+
+    private static Object roundTrip(Object value) throws IOException {
+        return Codec.read(input(encode(value)));
+    }
+
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Codec.write(new DataOutputStream(bytes), value);
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static void assertRejected(byte[] frame) {
+        assertThrows(IOException.class, () -> Codec.read(input(frame)));
+    }
+}
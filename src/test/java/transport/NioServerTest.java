@@ -0,0 +1,90 @@
+package transport;
+
+import common.GameInterface;
+import common.GameState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the NIO transport over loopback against a canned GameInterface
+class NioServerTest {
+    private NioServer server;
+    private GameInterface client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GameInterface target = (GameInterface) Proxy.newProxyInstance(GameInterface.class.getClassLoader(),
+                new Class<?>[]{GameInterface.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRoomIds" -> List.of("r1", "r2");
+                    case "getGameState" -> GameState.VOTING;
+                    case "heartbeat" -> args[1].equals("ann");
+                    default -> null;
+                });
+        server = new NioServer(target, 0);
+        server.start();
+        client = NioClient.connect("localhost", server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        NioClient.close(client);
+        server.stop();
+    }
+
+    @Test
+    void callsRoundTrip() throws Exception {
+        assertEquals(List.of("r1", "r2"), client.getRoomIds());
+        assertEquals(GameState.VOTING, client.getGameState("r1"));
+        assertEquals(true, client.heartbeat("r1", "ann"));
+        assertEquals(false, client.heartbeat("r1", "bob"));
+    }
+
+    @Test
+    void malformedFramesOnlyCloseTheirConnection() throws Exception {
+        // a state ordinal out of range, a negative argument list and a huge string list
+        assertClosedBy(call("getGameState", 1, 7, 99));
+        assertClosedBy(call("getGameState", 1, 6, 0xff, 0xff, 0xff, 0xfe));
+        assertClosedBy(call("getRoomIds", 0x80));
+        assertClosedBy(call("getGameState", 1, 6, 0x7f, 0xff, 0xff, 0xff));
+
+        // the well behaved client on its own socket never noticed
+        assertEquals(List.of("r1", "r2"), client.getRoomIds());
+        assertEquals(GameState.VOTING, client.getGameState("r1"));
+    }
+
+    private static ByteBuffer call(String method, int... body) throws IOException {
+        ByteBuffer frame = Frame.call(1, method, null);
+        // replace the empty argument list with the raw bytes
+        ByteBuffer patched = ByteBuffer.allocate(frame.capacity() - 1 + body.length);
+        patched.put(frame.array(), 0, frame.capacity() - 1);
+        for (int b : body) {
+            patched.put((byte) b);
+        }
+        patched.putInt(0, patched.capacity() - Frame.HEADER);
+        return patched.flip();
+    }
+
+    private void assertClosedBy(ByteBuffer frame) throws IOException {
+        try (Socket raw = new Socket("localhost", server.getPort())) {
+            // a server that died would leave this read hanging, fail instead
+            raw.setSoTimeout(5000);
+            raw.getOutputStream().write(frame.array(), 0, frame.limit());
+            int read;
+            try {
+                read = raw.getInputStream().read();
+            } catch (SocketException e) {
+                read = -1;
+            }
+            assertEquals(-1, read);
+        }
+    }
+}
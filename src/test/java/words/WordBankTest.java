@@ -0,0 +1,137 @@
+package words;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WordBankTest {
+    private static final List<WordEntry> ENTRIES = List.of(
+            new WordEntry("tower", "places", 1, List.of("high")),
+            new WordEntry("turtle", "animals", 2, List.of("slow", "shell")),
+            new WordEntry("school", "places", 1, List.of("kids")),
+            new WordEntry("crème brûlée", "food", 3, List.of("sweet", "burnt", "french")),
+            new WordEntry("owl", "animals", 2, List.of("night")));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compiledBankReadsBackGroupedByCategory() throws IOException {
+        Path file = directory.resolve("words.bank");
+        WordBankCompiler.write(ENTRIES, file);
+        WordBank bank = WordBank.open(file);
+
+        assertEquals(5, bank.size());
+        assertEquals(List.of("places", "animals", "food"), bank.getCategories());
+        assertArrayEquals(new int[]{0, 2}, bank.range("places"));
+        assertArrayEquals(new int[]{2, 2}, bank.range("animals"));
+        assertArrayEquals(new int[]{4, 1}, bank.range("food"));
+        assertNull(bank.range("music"));
+        assertEquals(ENTRIES.get(0), bank.entry(0));
+        assertEquals(ENTRIES.get(2), bank.entry(1));
+        assertEquals(ENTRIES.get(1), bank.entry(2));
+        assertEquals(ENTRIES.get(3), bank.entry(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> bank.entry(5));
+    }
+
+    @Test
+    void truncatedBankIsRejected() throws IOException {
+        byte[] bytes = compiled(ENTRIES);
+        Path file = directory.resolve("cut.bank");
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> WordBank.open(file), "length " + length);
+        }
+    }
+
+    @Test
+    void corruptBankFailsOnOpenOrReadsCleanly() throws IOException {
+        byte[] bytes = compiled(ENTRIES);
+        Path file = directory.resolve("bad.bank");
+        for (int position = 0; position < bytes.length; position++) {
+            for (int value : new int[]{0x00, 0x7f, 0xff}) {
+                byte[] broken = bytes.clone();
+                broken[position] = (byte) value;
+                Files.write(file, broken);
+                WordBank bank;
+                try {
+                    bank = WordBank.open(file);
+                } catch (IOException e) {
+                    continue;
+                }
+                // whatever got through must be readable end to end
+                for (int i = 0; i < bank.size(); i++) {
+                    assertFalse(bank.entry(i).hints().isEmpty(), "byte " + position + " = " + value);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sourceKeepsTheOldBankWhenAReloadIsBroken() throws IOException {
+        Path file = directory.resolve("words.bank");
+        WordBankCompiler.write(ENTRIES, file);
+        WordSource source = new WordSource(file);
+        WordBank first = source.current();
+
+        // replaced, never rewritten in place, the old mapping must stay intact
+        Path broken = Files.write(directory.resolve("broken.bank"), Arrays.copyOf(compiled(ENTRIES), 40));
+        Files.move(broken, file, StandardCopyOption.REPLACE_EXISTING);
+        assertFalse(source.reload());
+        assertEquals(first, source.current());
+
+        // the compiler renames a new file over the old one, the bank already mapped still reads its own words
+        WordBankCompiler.write(List.of(new WordEntry("carrot", "food", 1, List.of("orange"))), file);
+        assertTrue(source.reload());
+        assertEquals("carrot", source.current().entry(0).word());
+        assertEquals("tower", first.entry(0).word());
+    }
+
+    @Test
+    void unreadableBankFallsBackToTheBuiltinWords() throws IOException {
+        Path file = directory.resolve("junk.bank");
+        Files.writeString(file, "not a word bank at all");
+        assertEquals("builtin", new WordSource(file).current().getSource());
+    }
+
+    @Test
+    void samplerDrawsEveryWordOfItsCategoryOncePerCycle() throws IOException {
+        Path file = directory.resolve("words.bank");
+        WordBankCompiler.write(ENTRIES, file);
+        WordSampler sampler = new WordSampler(new WordSource(file), "animals");
+        for (int cycle = 0; cycle < 3; cycle++) {
+            Set<String> drawn = new HashSet<>();
+            drawn.add(sampler.next().word());
+            drawn.add(sampler.next().word());
+            assertEquals(Set.of("turtle", "owl"), drawn);
+        }
+
+        WordSampler everything = new WordSampler(new WordSource(file), null);
+        Set<String> drawn = new HashSet<>();
+        for (int i = 0; i < ENTRIES.size(); i++) {
+            drawn.add(everything.next().word());
+        }
+        assertEquals(ENTRIES.size(), drawn.size());
+    }
+
+    private static byte[] compiled(List<WordEntry> entries) throws IOException {
+        ByteBuffer buffer = WordBankCompiler.compile(entries);
+        return Arrays.copyOf(buffer.array(), buffer.limit());
+    }
+}